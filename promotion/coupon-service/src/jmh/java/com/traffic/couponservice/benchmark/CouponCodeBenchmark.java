@@ -0,0 +1,46 @@
+package com.traffic.couponservice.benchmark;
+
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
+import com.traffic.couponservice.service.CouponCodeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿠폰 코드 생성 방식 비교
+ * 실행 : ./gradlew :coupon-service:jmh  (할당량까지 보려면 jmh { profilers = ['gc'] } 사용)
+ * - uuid8 / uuid12 : 기존 v1, v2 / v3 방식 (SecureRandom + 문자열 여러 개 생성)
+ * - generator      : CouponCodeGenerator (Snowflake ID 인코딩)
+ * 발급 요청은 여러 스레드에서 동시에 들어오므로 스레드 4개 기준으로 측정
+ * (generator 는 Snowflake 시퀀스 한도인 노드당 1ms 4,096개가 처리량 상한)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class CouponCodeBenchmark {
+
+    private final CouponCodeGenerator couponCodeGenerator = new CouponCodeGenerator(new SnowflakeIdGenerator(1));
+
+    @Benchmark
+    public String uuid8() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Benchmark
+    public String uuid12() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
+    }
+
+    @Benchmark
+    public String generator() {
+        return couponCodeGenerator.generate();
+    }
+}
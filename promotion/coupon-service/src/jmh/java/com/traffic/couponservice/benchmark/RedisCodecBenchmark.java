@@ -0,0 +1,92 @@
+package com.traffic.couponservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.traffic.couponservice.config.VersionedSmileCodec;
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.dto.v1.CouponDto;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * coupon:state:{couponId} 값 저장 형식 비교
+ * 실행 : ./gradlew :coupon-service:jmh
+ * - json  : 기존 방식 (ObjectMapper 로 JSON 문자열 생성 / 파싱, StringCodec 으로 저장)
+ * - smile : VersionedSmileCodec (버전 헤더 + Smile 바이너리)
+ * 항목당 저장 크기는 Setup 에서 출력
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RedisCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final VersionedSmileCodec smileCodec = new VersionedSmileCodec(CouponDto.Response.class, objectMapper);
+
+    private CouponDto.Response response;
+    private String json;
+    private ByteBuf smile;
+
+    @Setup
+    public void setUp() throws Exception {
+        LocalDateTime now = LocalDateTime.of(2025, 3, 1, 10, 0);
+        response = CouponDto.Response.builder()
+                .id(1_234_567_890_123L)
+                .userId(98_765L)
+                .couponCode("ABCDEFGHJKMNPQ")
+                .discountType(CouponPolicy.DiscountType.PERCENTAGE)
+                .discountValue(10)
+                .minimumOrderAmount(10_000)
+                .maximumDiscountAmount(5_000)
+                .validFrom(now)
+                .validUntil(now.plusDays(30))
+                .status(Coupon.Status.AVAILABLE)
+                .build();
+        json = objectMapper.writeValueAsString(response);
+        smile = smileCodec.getValueEncoder().encode(response);
+        System.out.printf("%n[저장 크기] json %d bytes, smile %d bytes%n",
+                json.getBytes(StandardCharsets.UTF_8).length, smile.readableBytes());
+    }
+
+    @TearDown
+    public void tearDown() {
+        smile.release();
+    }
+
+    @Benchmark
+    public String jsonEncode() throws Exception {
+        return objectMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public Object jsonDecode() throws Exception {
+        return objectMapper.readValue(json, CouponDto.Response.class);
+    }
+
+    @Benchmark
+    public int smileEncode() throws Exception {
+        ByteBuf encoded = smileCodec.getValueEncoder().encode(response);
+        try {
+            return encoded.readableBytes();
+        } finally {
+            encoded.release();
+        }
+    }
+
+    @Benchmark
+    public Object smileDecode() throws Exception {
+        return smileCodec.getValueDecoder().decode(smile.duplicate(), null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.traffic.couponservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.dto.v1.CouponDto;
+import lombok.Getter;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.TypedJsonJacksonCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 에 객체로 저장하는 키별 코덱 (coupon.redis.codec)
+ * smile : VersionedSmileCodec (버전 헤더가 붙은 바이너리)
+ * json  : TypedJsonJacksonCodec (JSON)
+ * 락, 수량(RAtomicLong), 비트맵, Lua 스크립트는 기본 코덱 / StringCodec 에 의존하므로 Redisson 기본 코덱은 바꾸지 않고 버킷 단위로 지정
+ */
+@Getter
+@Component
+public class CouponRedisCodecs {
+    private static final String FORMAT_JSON = "json";
+
+    // coupon:state:{couponId} 해시의 state 필드 (CouponDto.Response)
+    private final Codec couponStateCodec;
+    // coupon:policy:{policyId} (CouponPolicyDto.Response 로 저장, CouponPolicy 로 조회)
+    private final Codec couponPolicyCodec;
+
+    public CouponRedisCodecs(ObjectMapper objectMapper, @Value("${coupon.redis.codec:smile}") String format) {
+        this.couponStateCodec = codec(format, CouponDto.Response.class, objectMapper);
+        this.couponPolicyCodec = codec(format, CouponPolicy.class, objectMapper);
+    }
+
+    private static Codec codec(String format, Class<?> valueClass, ObjectMapper objectMapper) {
+        if (FORMAT_JSON.equals(format)) {
+            return new TypedJsonJacksonCodec(valueClass, objectMapper);
+        }
+        return new VersionedSmileCodec(valueClass, objectMapper);
+    }
+}
@@ -2,24 +2,76 @@ package com.traffic.couponservice.config;
 
 
 import com.traffic.couponservice.dto.v3.CouponDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@RequiredArgsConstructor
 public class KafkaConfig {
     private static final String BOOTSTRAP_SERVERS = "localhost:9092";
     private static final String GROUP_ID = "coupon-service";
+    private static final String CONSUMER_MODE_BATCH = "batch";
+    private static final String CONSUMER_MODE_PARALLEL = "parallel";
+    private static final String COUPON_ISSUE_TOPIC = "coupon-issue-requests";
+    private static final String COUPON_ISSUE_DLT = COUPON_ISSUE_TOPIC + "-dlt";
+    private static final String PRODUCER_PROFILE_THROUGHPUT = "throughput";
+
+    private final MeterRegistry meterRegistry;
+
+    // 프로듀서 프로파일 (reliable : 미확인 요청 1개, throughput : 멱등 프로듀서 + 배치/압축)
+    @Value("${coupon.kafka.producer.profile:reliable}")
+    private String producerProfile;
+
+    @Value("${coupon.kafka.producer.linger-ms:5}")
+    private int lingerMs;
+
+    @Value("${coupon.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${coupon.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    // 컨슈머 처리 방식 (record : 메시지 단건 처리, batch : poll() 단위 배치 처리, parallel : poll() 단위로 받아 사용자별 레인에서 동시 처리)
+    @Value("${coupon.kafka.consumer.mode:record}")
+    private String consumerMode;
+
+    // 리스너 최대 동시성 (파티션 수보다 크게 설정해도 파티션 수만큼만 동작)
+    @Value("${coupon.kafka.consumer.concurrency.max:3}")
+    private int maxConcurrency;
+
+    // 발급 메시지 처리 재시도 (record 모드는 재시도 토픽, batch 모드는 컨테이너 내 재시도)
+    @Value("${coupon.kafka.retry.attempts:4}")
+    private int retryAttempts;
+
+    @Value("${coupon.kafka.retry.delay-ms:1000}")
+    private long retryDelayMs;
+
+    @Value("${coupon.kafka.retry.multiplier:2.0}")
+    private double retryMultiplier;
+
+    @Value("${coupon.kafka.retry.max-delay-ms:10000}")
+    private long retryMaxDelayMs;
 
     // Kafka Producer 설정
     @Bean
@@ -33,19 +85,42 @@ public class KafkaConfig {
         config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         // Json 직렬화 시 Header에 타입 정보 추가  (나중에 consumer에서 역질화 할때 타입 정보를 사용하기 위해)
         config.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, true); 
-        
-        
-        // 안정성을 위한 추가 설정
+
+        applyProducerProfile(config, producerProfile, lingerMs, batchSize, compressionType);
+
+        DefaultKafkaProducerFactory<String, CouponDto.IssueMessage> factory = new DefaultKafkaProducerFactory<>(config);
+        // 프로듀서 내부 메트릭(batch-size-avg, record-queue-time-avg, request-latency-avg, buffer-exhausted-rate 등)을 Micrometer로 노출
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * 프로듀서 프로파일 적용
+     * reliable   : 미확인 요청 1개, 배치/압축 없음 (요청마다 이전 요청의 ack 를 기다림)
+     * throughput : 멱등 프로듀서 + 미확인 요청 5개 (멱등 프로듀서는 5개까지 파티션 내 순서를 보장), linger/batch 로 묶어서 압축 전송
+     * 두 프로파일 모두 acks=all 로 유실 없이 전송
+     */
+    static void applyProducerProfile(Map<String, Object> config, String profile, int lingerMs, int batchSize, String compressionType) {
         // 모든 ISR의 커밋 확인을 기다림 , 최대한의 데이터 무손실 보장(성능은 약간 저하 될 수 있음)
         config.put(ProducerConfig.ACKS_CONFIG, "all");
+
+        if (PRODUCER_PROFILE_THROUGHPUT.equals(profile)) {
+            // 재시도로 인한 중복/순서 뒤바뀜을 브로커가 시퀀스 번호로 걸러냄
+            config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+            config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+            // 최대 linger.ms 만큼 기다렸다가 batch.size 단위로 묶어서 전송
+            config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+            config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+            config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+            return;
+        }
+
         // 일시적 오류(네트워크 문제 등) 발생 시 3회 재시도
         config.put(ProducerConfig.RETRIES_CONFIG, 3);
         // 동시 전송 가능한 미확인 요청 수를 1로 제한,   메세지 순서 보장을 위해 사용
         config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1);
-        return new DefaultKafkaProducerFactory<>(config);
     }
 
-
     @Bean
     public KafkaTemplate<String, CouponDto.IssueMessage> couponKafkaTemplate(){
         return new KafkaTemplate<>(couponProducerFactory());
@@ -105,8 +180,42 @@ public class KafkaConfig {
         factory.setConsumerFactory(couponConsumerFactory());
 
         // 동시성 설정
-        // 3개의 컨슈머 스레드 생성 , partition과 consumer는 1:1 매칭
-        factory.setConcurrency(3);
+        // 최대 컨슈머 스레드 수로 시작 , partition과 consumer는 1:1 매칭
+        // 이후 CouponConsumerConcurrencyScaler 가 컨슈머 랙에 따라 min ~ max(파티션 수 이하) 사이에서 조절
+        factory.setConcurrency(maxConcurrency);
+
+        // 배치 리스너 : poll()로 가져온 레코드(최대 MAX_POLL_RECORDS)를 List로 한 번에 전달
+        // 리스너가 정상 종료된 후 배치 단위로 오프셋 커밋
+        // parallel 모드도 poll() 단위로 받아 레인별로 나눈 뒤, 실패한 위치 앞까지만 커밋 (BatchListenerFailedException)
+        if (CONSUMER_MODE_BATCH.equals(consumerMode) || CONSUMER_MODE_PARALLEL.equals(consumerMode)) {
+            factory.setBatchListener(true);
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+            factory.setCommonErrorHandler(batchErrorHandler());
+        }
         return factory;
     }
+
+    // 배치 리스너는 재시도 토픽을 사용할 수 없으므로 리스너가 BatchListenerFailedException 으로 실패 위치를 알리면(batch / parallel 모드)
+    // 그 앞까지 커밋하고 실패한 메시지부터 지연 후 다시 처리하며, 재시도를 모두 실패한 메시지만 DLT 로 보냄 (이미 저장된 메시지는 멱등 키로 건너뜀)
+    private DefaultErrorHandler batchErrorHandler() {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(couponKafkaTemplate(),
+                // DLT 메시지 처리(보상)에 실패한 경우 다시 DLT 로 보내면 무한 반복되므로 보내지 않음
+                (record, ex) -> COUPON_ISSUE_DLT.equals(record.topic()) ? null : new TopicPartition(COUPON_ISSUE_DLT, record.partition()));
+
+        ExponentialBackOff backOff = new ExponentialBackOff(retryDelayMs, retryMultiplier);
+        backOff.setMaxInterval(retryMaxDelayMs);
+        backOff.setMaxAttempts(retryAttempts - 1);      // 첫 처리를 제외한 재시도 횟수
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        errorHandler.addNotRetryableExceptions(IllegalArgumentException.class);
+        return errorHandler;
+    }
+
+    // 배치 모드의 DLT (record 모드는 @RetryableTopic 이 재시도 토픽과 함께 생성), 파티션 수는 원본 토픽과 같아야 함
+    @Bean
+    public NewTopic couponIssueDeadLetterTopic() {
+        return TopicBuilder.name(COUPON_ISSUE_DLT)
+                .partitions(3)
+                .build();
+    }
 }
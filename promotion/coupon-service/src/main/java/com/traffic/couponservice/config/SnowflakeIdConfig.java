@@ -0,0 +1,48 @@
+package com.traffic.couponservice.config;
+
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Snowflake 워커 ID 설정
+ * snowflake.worker-id 가 지정되어 있으면 그 값을, 없으면 Redis 에서 겹치지 않는 워커 ID 를 임대 (SnowflakeWorkerIdLease)
+ * 임대할 수 없으면 기동 실패 (해시 등으로 추측한 워커 ID 는 노드 간 중복 시 PK / 쿠폰 코드가 중복됨)
+ * 사용 중인 워커 ID 는 Eureka 메타데이터(snowflake-worker-id)로 노출하여 확인할 수 있도록 함
+ */
+@Slf4j
+@Configuration
+public class SnowflakeIdConfig {
+    private static final String WORKER_ID_METADATA_KEY = "snowflake-worker-id";
+
+    @Value("${snowflake.worker-id:-1}")
+    private long workerId;
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(ObjectProvider<EurekaInstanceConfigBean> eurekaInstance,
+                                                     SnowflakeWorkerIdLease workerIdLease) {
+        EurekaInstanceConfigBean instance = eurekaInstance.getIfAvailable();
+        SnowflakeIdGenerator generator = workerId >= 0
+                ? new SnowflakeIdGenerator(workerId)
+                : workerIdLease.acquire(leaseStart(instance));
+
+        SnowflakeIdGenerator.initialize(generator);
+        if (instance != null) {
+            instance.getMetadataMap().put(WORKER_ID_METADATA_KEY, String.valueOf(generator.getWorkerId()));
+        }
+        log.info("Snowflake 워커 ID: {}", generator.getWorkerId());
+        return generator;
+    }
+
+    // 노드마다 다른 위치부터 빈 워커 ID 를 찾도록 시작 위치만 인스턴스 ID 로 분산 (중복 여부는 임대로 보장)
+    private long leaseStart(EurekaInstanceConfigBean instance) {
+        if (instance == null || instance.getInstanceId() == null) {
+            return 0;
+        }
+        return Math.floorMod(instance.getInstanceId().hashCode(), SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+    }
+}
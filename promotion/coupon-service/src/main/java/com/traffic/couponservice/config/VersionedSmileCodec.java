@@ -0,0 +1,88 @@
+package com.traffic.couponservice.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Redis 에 저장하는 객체용 바이너리 코덱 (Smile = 바이너리 JSON)
+ * 저장 형식 : [MAGIC 1byte][FORMAT_VERSION 1byte][Smile 본문 (Smile 헤더 없음)]
+ * JSON 문자열 대비 필드 이름 재사용(back reference)과 숫자 바이너리 인코딩으로 크기가 줄고, 문자열 생성 없이 바로 객체로 변환
+ *
+ * 스키마 변경 규칙 (필드 이름 기준으로 매핑되므로 아래 범위에서는 버전을 올리지 않음)
+ * - 필드 추가 : 이전 데이터에 없는 필드는 null / 기본값, 이전 버전 노드는 모르는 필드를 무시
+ * - 필드 삭제 : 저장된 데이터의 삭제된 필드는 무시
+ * - 필드 이름/타입 변경 : FORMAT_VERSION 을 올리고 decode 에 이전 버전 변환을 추가
+ * 알 수 없는 형식(이전 코덱으로 저장된 값, 더 높은 버전)은 null 을 반환해 캐시 미스로 처리 (원본 저장소에서 다시 읽음)
+ */
+public class VersionedSmileCodec extends BaseCodec {
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte FORMAT_VERSION = 1;
+
+    private final Class<?> valueClass;
+    private final ObjectMapper mapper;
+
+    private final Encoder encoder = new Encoder() {
+        @Override
+        public ByteBuf encode(Object in) throws IOException {
+            ByteBuf out = ByteBufAllocator.DEFAULT.buffer();
+            try {
+                out.writeByte(MAGIC);
+                out.writeByte(FORMAT_VERSION);
+                mapper.writeValue((OutputStream) new ByteBufOutputStream(out), in);
+                return out;
+            } catch (IOException e) {
+                out.release();
+                throw e;
+            }
+        }
+    };
+
+    private final Decoder<Object> decoder = (buf, state) -> decode(buf);
+
+    // objectMapper 의 모듈(JavaTimeModule 등) 설정을 그대로 사용, decode 결과 타입은 valueClass
+    public VersionedSmileCodec(Class<?> valueClass, ObjectMapper objectMapper) {
+        this.valueClass = valueClass;
+        SmileFactory smileFactory = SmileFactory.builder()
+                .disable(SmileGenerator.Feature.WRITE_HEADER)   // 앞의 2byte 헤더로 형식을 구분하므로 Smile 헤더(4byte) 생략
+                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                .build();
+        this.mapper = objectMapper.copyWith(smileFactory)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    private Object decode(ByteBuf buf) throws IOException {
+        if (buf.readableBytes() < 2 || buf.getByte(buf.readerIndex()) != MAGIC) {
+            return null;
+        }
+        byte version = buf.getByte(buf.readerIndex() + 1);
+        if (version != FORMAT_VERSION) {
+            return null;
+        }
+        buf.skipBytes(2);
+        return mapper.readValue((InputStream) new ByteBufInputStream(buf), valueClass);
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+}
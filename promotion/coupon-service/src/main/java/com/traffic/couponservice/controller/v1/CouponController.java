@@ -53,4 +53,13 @@ public class CouponController {
                 .toList());
     }
 
+    // 커서 기반 쿠폰함 조회, 응답의 nextCursor 를 다음 요청의 cursor 로 전달
+    @GetMapping("/wallet")
+    public ResponseEntity<CouponDto.CursorResponse> getWallet(
+            @RequestParam(defaultValue = "AVAILABLE") Coupon.Status status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(couponService.getCouponsByCursor(status, cursor, size));
+    }
+
 }
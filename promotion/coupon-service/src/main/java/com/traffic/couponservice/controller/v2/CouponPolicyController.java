@@ -1,6 +1,5 @@
 package com.traffic.couponservice.controller.v2;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.traffic.couponservice.dto.v1.CouponPolicyDto;
 
 import com.traffic.couponservice.service.v2.CouponPolicyService;
@@ -19,7 +18,7 @@ public class CouponPolicyController {
 
     // 쿠폰 정책 생성
     @PostMapping
-    public ResponseEntity<CouponPolicyDto.Response> addCouponPolicy(@RequestBody CouponPolicyDto.CreateRequest request) throws JsonProcessingException {
+    public ResponseEntity<CouponPolicyDto.Response> addCouponPolicy(@RequestBody CouponPolicyDto.CreateRequest request) {
         return ResponseEntity.ok()
                 .body(CouponPolicyDto.Response.from(couponPolicyService.createCouponPolicy(request)));
     }
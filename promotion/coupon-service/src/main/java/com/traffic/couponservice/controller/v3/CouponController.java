@@ -1,22 +1,56 @@
 package com.traffic.couponservice.controller.v3;
 
 import com.traffic.couponservice.dto.v3.CouponDto;
+import com.traffic.couponservice.service.v3.CouponIssueTicketService;
 import com.traffic.couponservice.service.v3.CouponService;
+import com.traffic.couponservice.service.v3.CouponWaitingRoomService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
 
 @RestController("couponControllerV3")
 @RequestMapping("/api/v3/coupons")
 @RequiredArgsConstructor
 public class CouponController {
+    private static final String ADMISSION_TOKEN_HEADER = "X-Admission-Token";
+
     private final CouponService couponService;
+    private final CouponIssueTicketService couponIssueTicketService;
+    // 대기열을 사용하지 않으면(coupon.waiting-room.enabled=false) 빈이 없음
+    private final ObjectProvider<CouponWaitingRoomService> couponWaitingRoomService;
 
-    // 쿠폰 발급 요청
+    // 쿠폰 발급 요청, 결과는 Location 의 티켓 조회 API로 확인
     @PostMapping("/issue")
-    public ResponseEntity<CouponDto.Response> issueCoupon(@RequestBody CouponDto.IssueRequest request) {
-        couponService.requestCouponIssue(request);
-        return ResponseEntity.accepted().build();
+    public ResponseEntity<CouponDto.IssueTicketResponse> issueCoupon(
+            @RequestBody CouponDto.IssueRequest request,
+            @RequestHeader(value = ADMISSION_TOKEN_HEADER, required = false) String admissionToken
+    ) {
+        // 대기열을 사용하는 경우 입장 토큰이 있어야 발급 가능 (서명만 확인하므로 Redis 조회 없음)
+        CouponWaitingRoomService waitingRoom = couponWaitingRoomService.getIfAvailable();
+        if (waitingRoom != null && !waitingRoom.verifyAdmission(request.getCouponPolicyId(), admissionToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        String ticketId = couponService.requestCouponIssue(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{ticketId}")
+                .buildAndExpand(ticketId)
+                .toUri();
+        return ResponseEntity.accepted()
+                .location(location)
+                .body(CouponDto.IssueTicketResponse.pending(ticketId, request.getCouponPolicyId()));
+    }
+
+    // 쿠폰 발급 결과 조회 (Redis 티켓만 조회, DB 접근 없음)
+    @GetMapping("/issue/{ticketId}")
+    public ResponseEntity<CouponDto.IssueTicketResponse> getIssueTicket(@PathVariable String ticketId) {
+        return couponIssueTicketService.getTicket(ticketId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // 쿠폰 사용
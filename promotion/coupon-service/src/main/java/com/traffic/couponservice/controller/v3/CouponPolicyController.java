@@ -1,6 +1,5 @@
 package com.traffic.couponservice.controller.v3;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.traffic.couponservice.dto.v3.CouponPolicyDto;
 import com.traffic.couponservice.service.v3.CouponPolicyService;
 import lombok.RequiredArgsConstructor;
@@ -18,7 +17,7 @@ public class CouponPolicyController {
 
     // 쿠폰 정책 생성
     @PostMapping
-    public ResponseEntity<CouponPolicyDto.Response> addCouponPolicy(@RequestBody CouponPolicyDto.CreateRequest request) throws JsonProcessingException {
+    public ResponseEntity<CouponPolicyDto.Response> addCouponPolicy(@RequestBody CouponPolicyDto.CreateRequest request) {
         return ResponseEntity.ok()
                 .body(CouponPolicyDto.Response.from(couponPolicyService.createCouponPolicy(request)));
     }
@@ -0,0 +1,30 @@
+package com.traffic.couponservice.controller.v3;
+
+import com.traffic.couponservice.dto.v3.CouponDto;
+import com.traffic.couponservice.service.v3.CouponWaitingRoomService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@ConditionalOnProperty(name = "coupon.waiting-room.enabled", havingValue = "true")
+@RequestMapping("/api/v3/coupons/waiting-room")
+@RequiredArgsConstructor
+public class CouponWaitingRoomController {
+    private final CouponWaitingRoomService couponWaitingRoomService;
+
+    // 대기열 등록, 대기 순번 반환 (이미 입장한 경우 입장 토큰 반환)
+    @PostMapping("/{policyId}")
+    public ResponseEntity<CouponDto.WaitingResponse> enter(@PathVariable Long policyId) {
+        return ResponseEntity.ok(couponWaitingRoomService.enter(policyId));
+    }
+
+    // 대기 순번 / 입장 토큰 조회 (폴링)
+    @GetMapping("/{policyId}")
+    public ResponseEntity<CouponDto.WaitingResponse> getStatus(@PathVariable Long policyId) {
+        return couponWaitingRoomService.getStatus(policyId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
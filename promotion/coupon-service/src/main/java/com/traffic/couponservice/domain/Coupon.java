@@ -1,5 +1,6 @@
 package com.traffic.couponservice.domain;
 
+import com.traffic.couponservice.domain.id.SnowflakeId;
 import com.traffic.couponservice.exception.CouponAlreadyUsedException;
 import com.traffic.couponservice.exception.CouponExpiredException;
 import jakarta.persistence.*;
@@ -7,10 +8,20 @@ import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Table(name = "coupon", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_coupon_code", columnNames = "coupon_code"),    // 쿠폰 코드 중복 방지
+        @UniqueConstraint(name = "uk_coupon_issue_key", columnNames = "issue_key")  // 같은 발급 메시지 중복 저장 방지
+}, indexes = {
+        // 쿠폰함 커서 조회 (user_id, status 로 좁힌 뒤 id(생성 시각순) 역순으로 이어서 읽음)
+        @Index(name = "idx_coupon_user_status_id", columnList = "user_id, status, id"),
+        // 만료 스위퍼가 정책별로 아직 만료 처리되지 않은 쿠폰을 id 순으로 나눠 읽음
+        @Index(name = "idx_coupon_policy_status", columnList = "coupon_policy_id, status, id")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Coupon {
@@ -22,7 +33,7 @@ public class Coupon {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -32,6 +43,9 @@ public class Coupon {
     private Long userId;
     private String couponCode;
 
+    // v3 비동기 발급 멱등 키 (발급 티켓 ID), Kafka 재전송/리밸런싱으로 같은 메시지를 다시 받아도 한 번만 저장
+    private String issueKey;
+
     @Enumerated(EnumType.STRING)
     private Status status;
 
@@ -39,36 +53,64 @@ public class Coupon {
     private LocalDateTime usedAt;
     private LocalDateTime createdAt;
 
+    // 상태가 바뀔 때마다 1 증가 (조건부 UPDATE / 만료 처리도 쿼리에서 함께 증가)
+    // Redis 상태 캐시(coupon:state:*)는 이 버전보다 낮은 상태로 덮어쓰지 않음 (노드별 커밋 이후 저장 순서와 무관)
+    @ColumnDefault("0")
+    private long version;
+
     @Builder
-    public Coupon(Long id, CouponPolicy couponPolicy, Long userId, String couponCode) {
+    public Coupon(Long id, CouponPolicy couponPolicy, Long userId, String couponCode, String issueKey) {
         this.id = id;
         this.couponPolicy = couponPolicy;
         this.userId = userId;
         this.couponCode = couponCode;
+        this.issueKey = issueKey;
         this.status = Status.AVAILABLE;
     }
     
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     // 쿠폰 사용할때 예외처리
     public void use(Long orderId) {
+        use(orderId, LocalDateTime.now());
+    }
+
+    public void use(Long orderId, LocalDateTime usedAt) {
+        validateUse();
+        this.status = Status.USED;
+        this.orderId = orderId;
+        this.usedAt = usedAt;
+        this.version++;
+    }
+
+    // 사용 가능한 상태인지만 확인 (조건부 UPDATE 전에 상태를 바꾸지 않고 검증)
+    public void validateUse() {
         if (status == Status.USED) {
             throw new CouponAlreadyUsedException("이미 사용된 쿠폰입니다.");
         }
         if (isExpired()) {
             throw new CouponExpiredException("만료된 쿠폰입니다.");
         }
-        this.status = Status.USED;
-        this.orderId = orderId;
-        this.usedAt = LocalDateTime.now();
     }
 
     // 쿠폰 사용 취소
     public void cancel() {
-        if (status != Status.USED) {
-            throw new IllegalStateException("사용되지 않은 쿠폰입니다.");
-        }
+        validateCancel();
         this.status = Status.CANCELLED;
         this.orderId = null;
         this.usedAt = null;
+        this.version++;
+    }
+
+    public void validateCancel() {
+        if (status != Status.USED) {
+            throw new IllegalStateException("사용되지 않은 쿠폰입니다.");
+        }
     }
 
     public boolean isExpired() {
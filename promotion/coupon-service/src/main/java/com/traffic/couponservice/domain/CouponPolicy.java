@@ -1,22 +1,27 @@
 package com.traffic.couponservice.domain;
 
+import com.traffic.couponservice.domain.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "coupon_policies")
+@Table(name = "coupon_policies", indexes = {
+        // 만료 스위퍼가 최근 종료된 정책만 범위로 조회
+        @Index(name = "idx_coupon_policy_end_time", columnList = "end_time")
+})
 @Getter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class CouponPolicy {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(nullable = false)
@@ -41,6 +46,11 @@ public class CouponPolicy {
     @Column(nullable = false)
     private Integer totalQuantity;  // 총 몇개의 쿠폰을 발급할 것인지
 
+    // 발급된 수량, v1 conditional 발급 모드에서 조건부 UPDATE 로만 증가 (COUNT 조회 대신 사용)
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer issuedQuantity;
+
     @Column(nullable = false)
     private LocalDateTime startTime;    // 쿠폰 사용 가능 시작일자
 
@@ -60,6 +70,9 @@ public class CouponPolicy {
 
     @PrePersist
     protected void onCreate() {
+        if (issuedQuantity == null) {
+            issuedQuantity = 0;
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
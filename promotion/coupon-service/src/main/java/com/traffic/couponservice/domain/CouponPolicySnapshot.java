@@ -0,0 +1,41 @@
+package com.traffic.couponservice.domain;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 발급 경로에서 사용하는 쿠폰 정책 스냅샷 (노드 로컬 캐시에 보관)
+ * 발급 기간을 epoch millis 로 미리 계산해 두어 요청마다 LocalDateTime 변환 없이 기간을 확인
+ * 여러 스레드가 같은 인스턴스를 공유하므로 생성 이후 변경하지 않음
+ */
+@Getter
+public final class CouponPolicySnapshot {
+    private final CouponPolicy policy;
+    private final long startEpochMilli;
+    private final long endEpochMilli;
+
+    private CouponPolicySnapshot(CouponPolicy policy) {
+        this.policy = policy;
+        this.startEpochMilli = toEpochMilli(policy.getStartTime());
+        this.endEpochMilli = toEpochMilli(policy.getEndTime());
+    }
+
+    public static CouponPolicySnapshot of(CouponPolicy policy) {
+        return new CouponPolicySnapshot(policy);
+    }
+
+    public Long getId() {
+        return policy.getId();
+    }
+
+    // 발급 기간 여부 (시작/종료 시각 포함)
+    public boolean isInIssuePeriod(long nowEpochMilli) {
+        return nowEpochMilli >= startEpochMilli && nowEpochMilli <= endEpochMilli;
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,128 @@
+package com.traffic.couponservice.domain.id;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 시간순으로 증가하는 64bit ID 생성기 (Snowflake 방식)
+ * [1bit 부호(0)] [41bit 타임스탬프(ms, EPOCH 기준)] [10bit 워커 ID] [12bit 시퀀스]
+ * DB에 INSERT 하기 전에 애플리케이션에서 ID를 정하므로 IDENTITY 와 달리 Hibernate JDBC 배치 INSERT 가 가능하고,
+ * 워커 ID 가 노드마다 다르면 별도의 조율 없이도 노드 간 ID가 겹치지 않음
+ * 노드당 1ms 에 최대 4096개, 약 69년간 사용 가능
+ * 워커 ID 를 Redis 에서 임대한 경우 임대 만료 시각이 지나면 다른 노드가 같은 워커 ID 를 가져갔을 수 있으므로 ID 를 생성하지 않음
+ */
+public class SnowflakeIdGenerator {
+    // 2025-01-01T00:00:00Z
+    public static final long EPOCH = 1735689600000L;
+
+    private static final int WORKER_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+
+    // 이 시간 이내로 시계가 뒤로 가면(NTP 보정 등) 마지막 시각 기준으로 계속 발급, 그 이상이면 ID 중복 위험이 있어 예외
+    private static final long MAX_BACKWARD_MILLIS = 5;
+
+    // Hibernate 식별자 생성기는 Spring 빈이 아니므로 static 으로 보관 (서버 기동 시 워커 ID 를 정한 뒤 생성, 그 전에는 ID 를 만들지 않음)
+    private static volatile SnowflakeIdGenerator instance;
+
+    private final long workerId;
+    private final LongSupplier clock;
+
+    private long lastTimestamp = -1L;
+    private long sequence = 0L;
+
+    // 워커 ID 임대 만료 시각 (System.nanoTime 기준), 임대하지 않고 지정한 워커 ID 면 leased = false
+    private volatile boolean leased;
+    private volatile long leaseDeadlineNanos;
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("워커 ID는 0 ~ " + MAX_WORKER_ID + " 사이여야 합니다. workerId=" + workerId);
+        }
+        this.workerId = workerId;
+        this.clock = clock;
+    }
+
+    public static void initialize(long workerId) {
+        initialize(new SnowflakeIdGenerator(workerId));
+    }
+
+    public static void initialize(SnowflakeIdGenerator generator) {
+        instance = generator;
+    }
+
+    public static SnowflakeIdGenerator getInstance() {
+        SnowflakeIdGenerator current = instance;
+        if (current == null) {
+            throw new IllegalStateException("Snowflake 워커 ID 가 초기화되지 않았습니다.");
+        }
+        return current;
+    }
+
+    // 임대한 워커 ID 의 유효 기간 연장 (deadlineNanos 는 Redis 에 임대를 요청하기 전 시각 + TTL)
+    public void extendLease(long deadlineNanos) {
+        this.leaseDeadlineNanos = deadlineNanos;
+        this.leased = true;
+    }
+
+    public synchronized long nextId() {
+        if (leased && System.nanoTime() - leaseDeadlineNanos >= 0) {
+            throw new IllegalStateException("Snowflake 워커 ID 임대가 만료되어 ID를 생성할 수 없습니다. workerId=" + workerId);
+        }
+        long now = clock.getAsLong();
+        if (now < lastTimestamp) {
+            long offset = lastTimestamp - now;
+            if (offset > MAX_BACKWARD_MILLIS) {
+                throw new IllegalStateException("시스템 시계가 뒤로 이동하여 ID를 생성할 수 없습니다. offset=" + offset + "ms");
+            }
+            now = lastTimestamp;
+        }
+
+        if (now == lastTimestamp) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0) {
+                now = waitNextMillis(lastTimestamp);    // 같은 ms 의 시퀀스를 모두 사용함
+            }
+        } else {
+            sequence = 0;
+        }
+
+        lastTimestamp = now;
+        return ((now - EPOCH) << TIMESTAMP_SHIFT) | (workerId << WORKER_ID_SHIFT) | sequence;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    // ID에 기록된 생성 시각 (epoch millis)
+    public static long extractTimestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    // epochMillis 에 생성된 ID 중 가장 작은 값 (시각 기준 PK 범위 조회용)
+    public static long firstIdAt(long epochMillis) {
+        return (epochMillis - EPOCH) << TIMESTAMP_SHIFT;
+    }
+
+    public static long extractWorkerId(long id) {
+        return (id >>> WORKER_ID_SHIFT) & MAX_WORKER_ID;
+    }
+
+    private long waitNextMillis(long lastTimestamp) {
+        long now = clock.getAsLong();
+        while (now <= lastTimestamp) {
+            Thread.onSpinWait();
+            now = clock.getAsLong();
+        }
+        return now;
+    }
+}
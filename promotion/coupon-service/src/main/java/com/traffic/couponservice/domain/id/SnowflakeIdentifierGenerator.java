@@ -0,0 +1,13 @@
+package com.traffic.couponservice.domain.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+// INSERT 전에 ID가 정해지므로 Hibernate가 같은 엔티티의 INSERT를 JDBC 배치로 묶을 수 있음
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return SnowflakeIdGenerator.getInstance().nextId();
+    }
+}
@@ -7,8 +7,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.extern.jackson.Jacksonized;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @NoArgsConstructor
 public class CouponDto {
@@ -39,8 +41,16 @@ public class CouponDto {
         private Integer size;
     }
 
+    @Getter
+    @AllArgsConstructor
+    public static class CursorResponse {
+        private List<Response> coupons;
+        private String nextCursor;      // 다음 페이지 요청 시 전달, 마지막 페이지면 null
+    }
+
     @Getter
     @Builder
+    @Jacksonized    // Redis(coupon:state:*) 에서 읽을 때 빌더로 생성
     public static class Response {
         private Long id;
         private Long userId;
@@ -23,10 +23,37 @@ public class CouponDto {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class IssueMessage{
+        private String ticketId;        // 발급 결과 조회용 티켓
         private Long policyId;
         private Long userId;
     }
 
+    // 비동기 발급 처리 상태
+    public enum IssueStatus {
+        PENDING,        // Kafka 전송 완료, 저장 대기
+        ISSUED,         // 쿠폰 저장 완료
+        FAILED          // 발급 실패
+    }
+
+    @Getter
+    @Builder
+    public static class IssueTicketResponse {
+        private String ticketId;
+        private IssueStatus status;
+        private Long policyId;
+        private Long couponId;
+        private String couponCode;
+        private String reason;
+
+        public static IssueTicketResponse pending(String ticketId, Long policyId) {
+            return IssueTicketResponse.builder()
+                    .ticketId(ticketId)
+                    .status(IssueStatus.PENDING)
+                    .policyId(policyId)
+                    .build();
+        }
+    }
+
     @Getter
     @Builder
     public static class Response {
@@ -61,4 +88,31 @@ public class CouponDto {
                     .build();
         }
     }
+
+    @Getter
+    @Builder
+    public static class WaitingResponse {
+        private Long policyId;
+        private boolean admitted;
+        private Long position;              // 대기 순번 (1부터 시작, 입장 후에는 null)
+        private String admissionToken;      // 발급 API 호출 시 X-Admission-Token 헤더로 전달
+        private Long expiresAt;             // 입장 토큰 만료 시각 (epoch millis)
+
+        public static WaitingResponse waiting(Long policyId, long position) {
+            return WaitingResponse.builder()
+                    .policyId(policyId)
+                    .admitted(false)
+                    .position(position)
+                    .build();
+        }
+
+        public static WaitingResponse admitted(Long policyId, String admissionToken, long expiresAt) {
+            return WaitingResponse.builder()
+                    .policyId(policyId)
+                    .admitted(true)
+                    .admissionToken(admissionToken)
+                    .expiresAt(expiresAt)
+                    .build();
+        }
+    }
 }
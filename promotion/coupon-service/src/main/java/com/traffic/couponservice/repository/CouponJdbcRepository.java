@@ -0,0 +1,37 @@
+package com.traffic.couponservice.repository;
+
+import com.traffic.couponservice.domain.Coupon;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+// JPA save()를 건별로 호출하지 않고 여러 쿠폰을 하나의 JDBC 배치로 저장
+// MySQL 사용 시 rewriteBatchedStatements=true 옵션을 주면 드라이버가 multi-row INSERT 한 문장으로 변환함
+// JPA를 거치지 않으므로 ID는 호출하는 쪽에서 엔티티를 만들 때 Snowflake 생성기로 채번해 둠 (저장 후에도 coupon.getId() 로 사용)
+@Repository
+@RequiredArgsConstructor
+public class CouponJdbcRepository {
+    private static final String INSERT_SQL =
+            "INSERT INTO coupon (id, coupon_policy_id, user_id, coupon_code, issue_key, status, version, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void batchInsert(List<Coupon> coupons) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, coupons, coupons.size(), (ps, coupon) -> {
+            ps.setLong(1, Objects.requireNonNull(coupon.getId(), "쿠폰 ID 가 없습니다."));
+            ps.setLong(2, coupon.getCouponPolicy().getId());
+            ps.setLong(3, coupon.getUserId());
+            ps.setString(4, coupon.getCouponCode());
+            ps.setString(5, coupon.getIssueKey());
+            ps.setString(6, coupon.getStatus().name());
+            ps.setLong(7, coupon.getVersion());
+            ps.setTimestamp(8, now);
+        });
+    }
+}
@@ -5,8 +5,13 @@ import com.traffic.couponservice.domain.CouponPolicy;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface CouponPolicyRepository extends JpaRepository<CouponPolicy, Long> {
@@ -16,4 +21,30 @@ public interface CouponPolicyRepository extends JpaRepository<CouponPolicy, Long
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT cp FROM CouponPolicy cp WHERE cp.id = :id")
     Optional<CouponPolicy> findByIdWithLock(Long id);
-}
\ No newline at end of file
+
+    // 남은 수량이 있을 때만 발급 수량 1 증가, 0 을 반환하면 소진 (행 락은 이 UPDATE 부터 커밋까지만 유지)
+    @Modifying
+    @Query("UPDATE CouponPolicy cp SET cp.issuedQuantity = cp.issuedQuantity + 1 " +
+            "WHERE cp.id = :id AND cp.issuedQuantity < cp.totalQuantity")
+    int increaseIssuedQuantity(@Param("id") Long id);
+
+    // 발급 수량을 실제 발급된 쿠폰 수로 맞춤 (다른 방식으로 발급된 정책을 conditional 모드로 전환할 때)
+    // 작은 쪽만 올리므로 동시에 conditional 발급이 진행 중이어도 이미 증가한 수량을 되돌리지 않음
+    // 발급 기간이 끝난 정책은 더 발급되지 않으므로 COUNT 대상에서 제외
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE coupon_policies cp SET issued_quantity = " +
+            "(SELECT COUNT(*) FROM coupon c WHERE c.coupon_policy_id = cp.id) " +
+            "WHERE cp.end_time >= :now " +
+            "AND (cp.issued_quantity IS NULL " +
+            "OR cp.issued_quantity < (SELECT COUNT(*) FROM coupon c WHERE c.coupon_policy_id = cp.id))", nativeQuery = true)
+    int syncIssuedQuantityWithCouponCount(@Param("now") LocalDateTime now);
+
+    // 발급 기간이 진행 중이거나 until 이전에 시작하는 정책 (캐시 워밍업 대상)
+    @Query("SELECT cp FROM CouponPolicy cp WHERE cp.startTime <= :until AND cp.endTime >= :now")
+    List<CouponPolicy> findIssuablePolicies(@Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // [from, to) 사이에 종료된 정책 ID (idx_coupon_policy_end_time 범위 조회, 만료 스위퍼 대상)
+    @Query("SELECT cp.id FROM CouponPolicy cp WHERE cp.endTime >= :from AND cp.endTime < :to ORDER BY cp.endTime")
+    List<Long> findIdsByEndTimeBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -2,24 +2,94 @@ package com.traffic.couponservice.repository;
 
 import com.traffic.couponservice.domain.Coupon;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
 public interface CouponRepository extends JpaRepository<Coupon, Long> {
     Optional<Coupon> findByIdAndUserId(Long id, Long userId);
 
+    // 멱등 키(uk_coupon_issue_key 인덱스)로 이미 저장된 발급 건 조회
+    Optional<Coupon> findByIssueKey(String issueKey);
+
+    List<Coupon> findByIssueKeyIn(Collection<String> issueKeys);
+
     @Query("SELECT COUNT(c) FROM Coupon c WHERE c.couponPolicy.id = :policyId")
     Long countByCouponPolicyId(@Param("policyId") Long policyId);
 
+    // 정책별 발급 수량 [policyId, count]
+    @Query("SELECT c.couponPolicy.id, COUNT(c) FROM Coupon c WHERE c.couponPolicy.id IN :policyIds GROUP BY c.couponPolicy.id")
+    List<Object[]> countGroupByCouponPolicyIdIn(@Param("policyIds") Collection<Long> policyIds);
+
+    // Snowflake ID 범위(fromId, toId] 의 정책별 발급 수량 [policyId, count], PK 범위만 읽음
+    @Query("SELECT c.couponPolicy.id, COUNT(c) FROM Coupon c WHERE c.id > :fromId AND c.id <= :toId GROUP BY c.couponPolicy.id")
+    List<Object[]> countGroupByCouponPolicyIdInIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // 지정한 정책들의 Snowflake ID fromId 이후 발급 수량 [policyId, count]
+    @Query("SELECT c.couponPolicy.id, COUNT(c) FROM Coupon c WHERE c.couponPolicy.id IN :policyIds AND c.id > :fromId GROUP BY c.couponPolicy.id")
+    List<Object[]> countGroupByCouponPolicyIdInAndIdGreaterThan(@Param("policyIds") Collection<Long> policyIds, @Param("fromId") Long fromId);
+
+    // 정책의 쿠폰 ID fromId 이후 발급 유저를 limit 건씩 [couponId, userId], Redis 중복 발급 비트맵(coupon:issued:{policyId}) 복구용
+    @Query("SELECT c.id, c.userId FROM Coupon c WHERE c.couponPolicy.id = :policyId AND c.id > :fromId ORDER BY c.id")
+    List<Object[]> findIdAndUserIdByCouponPolicyIdAndIdGreaterThan(@Param("policyId") Long policyId,
+                                                                   @Param("fromId") Long fromId, Limit limit);
+
+    @Query("SELECT MIN(c.id) FROM Coupon c WHERE c.id > :fromId")
+    Long findMinIdGreaterThan(@Param("fromId") Long fromId);
+
     Page<Coupon> findByUserIdAndStatusOrderByCreatedAtDesc(Long userId, Coupon.Status status, Pageable pageable);
 
+    // 쿠폰함 첫 페이지 (idx_coupon_user_status_id 역순으로 limit 건, 정책은 fetch join, count 쿼리 없음)
+    @Query("SELECT c FROM Coupon c JOIN FETCH c.couponPolicy " +
+            "WHERE c.userId = :userId AND c.status = :status " +
+            "ORDER BY c.id DESC")
+    List<Coupon> findWalletFirstPage(@Param("userId") Long userId, @Param("status") Coupon.Status status, Limit limit);
+
+    // 쿠폰함 다음 페이지, 이전 페이지 마지막 쿠폰 id 이후부터 읽으므로 깊이와 관계없이 같은 비용
+    @Query("SELECT c FROM Coupon c JOIN FETCH c.couponPolicy " +
+            "WHERE c.userId = :userId AND c.status = :status AND c.id < :id " +
+            "ORDER BY c.id DESC")
+    List<Coupon> findWalletPageAfter(@Param("userId") Long userId, @Param("status") Coupon.Status status,
+                                     @Param("id") Long id, Limit limit);
+
+    @Query("SELECT c FROM Coupon c JOIN FETCH c.couponPolicy WHERE c.id = :id")
+    Optional<Coupon> findByIdWithPolicy(@Param("id") Long id);
+
+    @Query("SELECT c FROM Coupon c JOIN FETCH c.couponPolicy WHERE c.id = :id AND c.userId = :userId")
+    Optional<Coupon> findByIdAndUserIdWithPolicy(@Param("id") Long id, @Param("userId") Long userId);
+
+    // 조회 이후 상태(expected, version)가 바뀌지 않았을 때만 next 로 변경하고 version 증가 (compare-and-set), 0 이면 다른 요청이 먼저 변경함
+    // 행 락은 이 UPDATE 부터 커밋까지만 잡힘, 영속성 컨텍스트를 비워 조회해 둔 엔티티가 다시 UPDATE 되지 않도록 함
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Coupon c SET c.status = :next, c.orderId = :orderId, c.usedAt = :usedAt, c.version = c.version + 1 " +
+            "WHERE c.id = :id AND c.status = :expected AND c.version = :version")
+    int compareAndSetStatus(@Param("id") Long id, @Param("expected") Coupon.Status expected, @Param("version") long version,
+                            @Param("next") Coupon.Status next, @Param("orderId") Long orderId, @Param("usedAt") LocalDateTime usedAt);
+
+    // 정책의 쿠폰 중 statuses 상태인 쿠폰 ID 를 limit 건씩 (idx_coupon_policy_status)
+    @Query("SELECT c.id FROM Coupon c WHERE c.couponPolicy.id = :policyId AND c.status IN :statuses ORDER BY c.id")
+    List<Long> findIdsByCouponPolicyIdAndStatusIn(@Param("policyId") Long policyId,
+                                                  @Param("statuses") Collection<Coupon.Status> statuses, Limit limit);
+
+    // 조회 이후 사용되지 않은 쿠폰만 EXPIRED 로 변경, 배치마다 짧은 트랜잭션으로 커밋
+    @Transactional
+    @Modifying
+    @Query("UPDATE Coupon c SET c.status = com.traffic.couponservice.domain.Coupon.Status.EXPIRED, c.version = c.version + 1 " +
+            "WHERE c.id IN :ids AND c.status IN :statuses")
+    int expireByIdIn(@Param("ids") Collection<Long> ids, @Param("statuses") Collection<Coupon.Status> statuses);
+
     // 비관적 락 - 잠금이 설정된 동안에는 현재 업무가 끝나기 전까지 다른 api가 들어와도 대기상대가 됨
     // 여기에 Lock을 건 이유는 쿠폰을 발급 받는 도중 해당 쿠폰 정책이 변경이 되거나 할 수 있기 때문
     @Lock(LockModeType.PESSIMISTIC_WRITE)
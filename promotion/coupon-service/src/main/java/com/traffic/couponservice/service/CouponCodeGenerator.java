@@ -0,0 +1,103 @@
+package com.traffic.couponservice.service;
+
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 쿠폰 코드 생성기 (v1 ~ v3 공통)
+ * Snowflake ID 를 섞은(1:1 대응) 값을 Crockford Base32 13자리로 표현하고 마지막에 검증 문자 1자리를 붙임 (총 14자리)
+ * - ID 가 유일하면 코드도 유일하므로 UUID 일부를 잘라 쓰던 방식과 달리 충돌이 발생하지 않음
+ * - 섞는 함수가 전단사(bijective)라서 유일성은 유지하면서 연속 발급된 코드가 순서대로 보이지 않음
+ * - 0/O, 1/I/L 처럼 헷갈리는 문자를 제외한 알파벳을 사용하고, 검증 문자(Luhn mod 32)로 오타를 걸러냄
+ * - SecureRandom 을 사용하지 않고 char[] 하나와 String 하나만 할당
+ */
+@Component
+@RequiredArgsConstructor
+public class CouponCodeGenerator {
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int BASE = ALPHABET.length;
+    private static final int PAYLOAD_LENGTH = 13;   // 64bit / 5bit 올림
+    public static final int CODE_LENGTH = PAYLOAD_LENGTH + 1;
+
+    // 문자 -> 값 (Crockford 규칙대로 소문자와 O, I, L 입력도 허용)
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE; i++) {
+            DECODE[ALPHABET[i]] = i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = i;
+        }
+        DECODE['O'] = DECODE['o'] = 0;
+        DECODE['I'] = DECODE['i'] = 1;
+        DECODE['L'] = DECODE['l'] = 1;
+    }
+
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+
+    public String generate() {
+        return encode(snowflakeIdGenerator.nextId());
+    }
+
+    static String encode(long id) {
+        long value = scramble(id);
+        char[] code = new char[CODE_LENGTH];
+        for (int i = PAYLOAD_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET[(int) (value & (BASE - 1))];
+            value >>>= 5;
+        }
+        code[PAYLOAD_LENGTH] = ALPHABET[checkValue(code)];
+        return new String(code);
+    }
+
+    // 길이, 문자 구성, 검증 문자 확인 (DB 조회 전에 잘못 입력된 코드를 걸러낼 때 사용)
+    public static boolean isValid(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return false;
+        }
+        int sum = 0;
+        int factor = 1;     // 검증 문자부터 오른쪽 -> 왼쪽으로 1, 2 를 번갈아 곱함
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            int value = decode(code.charAt(i));
+            if (value < 0) {
+                return false;
+            }
+            sum += luhnAddend(value, factor);
+            factor = factor == 1 ? 2 : 1;
+        }
+        return sum % BASE == 0;
+    }
+
+    // Luhn mod N : 한 글자 오타와 인접한 두 글자가 바뀐 경우 대부분을 검출
+    private static int checkValue(char[] code) {
+        int sum = 0;
+        int factor = 2;     // 검증 문자 바로 앞 자리부터 2, 1 을 번갈아 곱함
+        for (int i = PAYLOAD_LENGTH - 1; i >= 0; i--) {
+            sum += luhnAddend(decode(code[i]), factor);
+            factor = factor == 2 ? 1 : 2;
+        }
+        return (BASE - sum % BASE) % BASE;
+    }
+
+    private static int luhnAddend(int value, int factor) {
+        int addend = value * factor;
+        return addend / BASE + addend % BASE;
+    }
+
+    private static int decode(char c) {
+        return c < DECODE.length ? DECODE[c] : -1;
+    }
+
+    // 64bit 전단사 함수 (MurmurHash3 fmix64), 서로 다른 ID 는 항상 서로 다른 값이 됨
+    private static long scramble(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
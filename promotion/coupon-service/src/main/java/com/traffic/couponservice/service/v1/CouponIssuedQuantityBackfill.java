@@ -0,0 +1,71 @@
+package com.traffic.couponservice.service.v1;
+
+import com.traffic.couponservice.repository.CouponPolicyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * v1 conditional 발급 모드로 전환할 때 한 번만 정책별 issued_quantity 를 실제 발급된 쿠폰 수(COUNT)로 맞춤
+ * lock 모드 / v2 / v3 로 발급된 쿠폰은 issued_quantity 를 올리지 않으므로, 맞추지 않고 전환하면 총 수량보다 많이 발급될 수 있음
+ * - 락을 얻은 한 노드만 실행하고, 끝나면 완료 키(coupon:v1:backfill:done)를 남겨 이후 기동에서는 COUNT 하지 않음
+ * - 발급 기간이 끝나지 않은 정책 중 발급 수량보다 쿠폰 수가 많은 정책만 올리므로 발급 중에 실행해도 이미 증가한 수량을 되돌리지 않음
+ * 다른 모드로 발급한 뒤 다시 conditional 모드로 전환할 때는 완료 키를 삭제하고 기동
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "coupon.v1.issue.mode", havingValue = "conditional")
+public class CouponIssuedQuantityBackfill {
+    private static final String BACKFILL_LOCK_KEY = "coupon:v1:backfill:lock";
+    static final String BACKFILL_DONE_KEY = "coupon:v1:backfill:done";
+
+    private final CouponPolicyRepository couponPolicyRepository;
+    private final RedissonClient redissonClient;
+
+    // 실행 중인 노드가 죽어도 이 시간 이후 다른 노드가 실행
+    @Value("${coupon.v1.backfill.lock-lease-seconds:300}")
+    private long lockLeaseSeconds;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        RBucket<String> done = redissonClient.getBucket(BACKFILL_DONE_KEY, StringCodec.INSTANCE);
+        if (done.isExists()) {
+            return;     // 이미 보정 완료
+        }
+
+        RLock lock = redissonClient.getLock(BACKFILL_LOCK_KEY);
+        try {
+            if (!lock.tryLock(0, lockLeaseSeconds, TimeUnit.SECONDS)) {
+                return;     // 다른 노드가 보정 중
+            }
+            try {
+                if (done.isExists()) {
+                    return;     // 락을 얻기 전에 다른 노드가 보정 완료
+                }
+                int updated = couponPolicyRepository.syncIssuedQuantityWithCouponCount(LocalDateTime.now());
+                if (updated > 0) {
+                    log.warn("쿠폰 정책 발급 수량 보정: {}건 (발급된 쿠폰 수 기준)", updated);
+                }
+                done.set(LocalDateTime.now().toString());
+            } finally {
+                if (lock.isHeldByCurrentThread()) {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -9,15 +9,19 @@ import com.traffic.couponservice.exception.CouponIssueException;
 import com.traffic.couponservice.exception.CouponNotFoundException;
 import com.traffic.couponservice.repository.CouponPolicyRepository;
 import com.traffic.couponservice.repository.CouponRepository;
+import com.traffic.couponservice.service.CouponCodeGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -25,10 +29,21 @@ public class CouponService {
 
     private final CouponRepository couponRepository;
     private final CouponPolicyRepository couponPolicyRepository;
+    private final CouponCodeGenerator couponCodeGenerator;
+
+    private static final int MAX_WALLET_PAGE_SIZE = 100;
+    private static final String ISSUE_MODE_CONDITIONAL = "conditional";
+
+    // v1 발급 방식 (lock : 정책 행 비관적 락 + COUNT, conditional : 발급 수량 조건부 UPDATE)
+    @Value("${coupon.v1.issue.mode:lock}")
+    private String issueMode;
 
     @Transactional
     @CouponMetered(version = "v1")
     public Coupon issueCoupon(CouponDto.IssueRequest request) {
+        if (ISSUE_MODE_CONDITIONAL.equals(issueMode)) {
+            return issueCouponWithConditionalUpdate(request);
+        }
 
         /**
          * 1. Race Condition 발생 가능성
@@ -67,15 +82,41 @@ public class CouponService {
         Coupon coupon = Coupon.builder()
                 .couponPolicy(couponPolicy)
                 .userId(UserIdInterceptor.getCurrentUserId())
-                .couponCode(generateCouponCode())
+                .couponCode(couponCodeGenerator.generate())
                 .build();
 
         return couponRepository.save(coupon);
     }
 
-    // 쿠폰 코드를 통해 사용하기도 하기에 쿠폰 랜덤값 부여
-    private String generateCouponCode(){
-        return UUID.randomUUID().toString().substring(0,8);
+    /**
+     * Redis 없이 DB 만으로 발급 (락 / COUNT 없음)
+     * 쿠폰을 먼저 INSERT 한 뒤 issued_quantity < total_quantity 조건으로 1 증가시키고, 갱신된 행이 없으면 롤백
+     * 정책 행 락은 마지막 UPDATE 부터 커밋까지만 잡히므로 쿠폰 INSERT 동안 다른 발급 요청을 막지 않음
+     * issued_quantity 는 이 방식으로 발급할 때만 증가하므로, 전환 후 첫 기동 시 CouponIssuedQuantityBackfill 이 한 번 발급된 쿠폰 수로 맞춤
+     */
+    private Coupon issueCouponWithConditionalUpdate(CouponDto.IssueRequest request) {
+        CouponPolicy couponPolicy = couponPolicyRepository.findById(request.getCouponPolicyId())
+                .orElseThrow(() -> new CouponIssueException("쿠폰 정책을 찾을 수 없습니다."));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(couponPolicy.getStartTime()) || now.isAfter(couponPolicy.getEndTime())) {
+            throw new CouponIssueException("쿠폰 발급 기간이 아닙니다.");
+        }
+        // 락 없이 읽은 값이라 최종 판단은 아래 조건부 UPDATE 로 하지만, 이미 소진된 정책은 INSERT / flush 없이 바로 거절
+        if (couponPolicy.getIssuedQuantity() != null && couponPolicy.getIssuedQuantity() >= couponPolicy.getTotalQuantity()) {
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
+        Coupon coupon = couponRepository.saveAndFlush(Coupon.builder()
+                .couponPolicy(couponPolicy)
+                .userId(UserIdInterceptor.getCurrentUserId())
+                .couponCode(couponCodeGenerator.generate())
+                .build());
+
+        if (couponPolicyRepository.increaseIssuedQuantity(couponPolicy.getId()) == 0) {
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");     // 위에서 저장한 쿠폰도 롤백
+        }
+        return coupon;
     }
 
     // 쿠폰 사용
@@ -113,4 +154,48 @@ public class CouponService {
                 )
         );
     }
+
+    // 쿠폰함 커서 조회, 오프셋/count 쿼리 없이 이전 페이지 마지막 쿠폰 다음부터 size 건
+    @Transactional(readOnly = true)
+    public CouponDto.CursorResponse getCouponsByCursor(Coupon.Status status, String cursor, Integer size) {
+        Long currentUserId = UserIdInterceptor.getCurrentUserId();
+        int pageSize = Math.min(size != null && size > 0 ? size : 10, MAX_WALLET_PAGE_SIZE);
+        // 한 건 더 읽어 다음 페이지가 있는지 확인
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<Coupon> coupons;
+        if (cursor == null || cursor.isBlank()) {
+            coupons = couponRepository.findWalletFirstPage(currentUserId, status, limit);
+        } else {
+            coupons = couponRepository.findWalletPageAfter(currentUserId, status, WalletCursor.decode(cursor).id(), limit);
+        }
+
+        boolean hasNext = coupons.size() > pageSize;
+        List<Coupon> page = hasNext ? coupons.subList(0, pageSize) : coupons;
+        String nextCursor = hasNext ? WalletCursor.of(page.get(page.size() - 1)).encode() : null;
+        return new CouponDto.CursorResponse(page.stream().map(CouponDto.Response::from).toList(), nextCursor);
+    }
+
+    // 커서 = Base64URL("id"), Snowflake ID 는 생성 시각순이므로 id 만으로 최신순 정렬
+    // (created_at 은 이전에 저장된 쿠폰에 NULL 일 수 있어 커서에 사용하지 않음, IDENTITY 로 저장된 이전 쿠폰도 ID 순 = 생성순)
+    private record WalletCursor(Long id) {
+
+        static WalletCursor of(Coupon coupon) {
+            return new WalletCursor(coupon.getId());
+        }
+
+        static WalletCursor decode(String cursor) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                return new WalletCursor(Long.valueOf(decoded));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("잘못된 커서입니다.", e);
+            }
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+        }
+    }
 }
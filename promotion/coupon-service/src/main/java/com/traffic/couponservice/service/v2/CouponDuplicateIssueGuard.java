@@ -0,0 +1,127 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
+import com.traffic.couponservice.exception.CouponIssueException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBitSet;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 정책별 중복 발급 방지
+ * coupon:issued:{policyId} 비트맵의 userId 번째 비트로 발급 여부를 기록 (SETBIT 한 번으로 확인 + 기록)
+ * 메모리는 유저 수가 아닌 가장 큰 userId 에만 비례하므로, userId 상한(max-user-id)을 넘는 요청은 비트를 기록하지 않고 거절하여
+ * 정책당 최대 (max-user-id / 8) 바이트로 제한 (user-service 의 userId 는 IDENTITY 로 1부터 증가하므로 실제 회원 수 범위로 설정)
+ * ex) max-user-id 가 1억이면 정책당 최대 약 12.5MB
+ * 정책당 최대 크기는 coupon.issued.guard.bytes.max 로, 정책별 비트맵 크기 / 발급 유저 수는 발급 기간이 끝나지 않은 정책만 주기적으로 MultiGauge 로 노출
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponDuplicateIssueGuard {
+    public static final String COUPON_ISSUED_KEY = "coupon:issued:";
+    // Redis 비트맵 오프셋 최대값 (2^32 - 1)
+    private static final long MAX_BITMAP_OFFSET = (1L << 32) - 1;
+
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+
+    // 메트릭을 노출할 정책별 발급 종료 시각 (epoch millis)
+    private final ConcurrentMap<Long, Long> meteredPolicies = new ConcurrentHashMap<>();
+
+    private MultiGauge guardBytes;
+    private MultiGauge guardUsers;
+
+    // 비트맵에 기록할 수 있는 최대 userId, 정책당 비트맵 최대 크기 = max-user-id / 8 바이트
+    @Value("${coupon.issue.guard.max-user-id:100000000}")
+    private long maxUserId;
+
+    @PostConstruct
+    void init() {
+        if (maxUserId < 0 || maxUserId > MAX_BITMAP_OFFSET) {
+            throw new IllegalStateException("coupon.issue.guard.max-user-id 는 0 ~ " + MAX_BITMAP_OFFSET + " 사이여야 합니다. maxUserId=" + maxUserId);
+        }
+        Gauge.builder("coupon.issued.guard.bytes.max", () -> maxUserId / 8 + 1)
+                .description("정책당 중복 발급 비트맵 최대 크기 (max-user-id 기준)")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        guardBytes = MultiGauge.builder("coupon.issued.guard.bytes")
+                .description("정책별 중복 발급 비트맵 크기")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        guardUsers = MultiGauge.builder("coupon.issued.guard.users")
+                .description("정책별 발급 유저 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 발급 기록을 남기고, 이미 발급받은 유저라면 예외 발생
+     */
+    public void markIssued(CouponPolicySnapshot couponPolicy, Long userId) {
+        validateUserId(userId);
+        registerMetrics(couponPolicy);
+
+        boolean alreadyIssued = bitSet(couponPolicy.getId()).set(userId);
+        if (alreadyIssued) {
+            throw new CouponIssueException("이미 발급받은 쿠폰입니다. 더 이상 발급이 불가능 합니다");
+        }
+    }
+
+    // 수량 소진, 저장 실패 등으로 발급이 취소된 경우 다시 발급받을 수 있도록 기록 삭제
+    public void release(Long policyId, Long userId) {
+        bitSet(policyId).clear(userId);
+    }
+
+    // 상한을 넘는 userId 는 비트맵을 키우지 않도록 기록 전에 거절
+    public void validateUserId(Long userId) {
+        if (userId == null || userId < 0 || userId > maxUserId) {
+            throw new CouponIssueException("유효하지 않은 사용자 ID 입니다.");
+        }
+    }
+
+    // 정책을 메트릭 노출 대상에 추가 (발급 종료 시각이 지나면 reportMetrics 에서 제외)
+    public void registerMetrics(CouponPolicySnapshot couponPolicy) {
+        meteredPolicies.putIfAbsent(couponPolicy.getId(), couponPolicy.getEndEpochMilli());
+    }
+
+    // 정책별 비트맵 크기(바이트)와 발급 유저 수를 노출, 종료된 정책의 행은 제거
+    @Scheduled(fixedDelayString = "${coupon.issue.guard.metrics-interval-ms:60000}")
+    public void reportMetrics() {
+        long now = System.currentTimeMillis();
+        meteredPolicies.entrySet().removeIf(entry -> entry.getValue() < now);
+
+        List<MultiGauge.Row<?>> byteRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> userRows = new ArrayList<>();
+        try {
+            for (Map.Entry<Long, Long> entry : meteredPolicies.entrySet()) {
+                RBitSet bitSet = bitSet(entry.getKey());
+                Tags tags = Tags.of("policyId", String.valueOf(entry.getKey()));
+                byteRows.add(MultiGauge.Row.of(tags, bitSet.size() / 8));
+                userRows.add(MultiGauge.Row.of(tags, bitSet.cardinality()));
+            }
+        } catch (Exception e) {
+            log.warn("중복 발급 비트맵 메트릭 조회 실패: {}", e.getMessage());
+            return;
+        }
+        guardBytes.register(byteRows, true);
+        guardUsers.register(userRows, true);
+    }
+
+    private RBitSet bitSet(Long policyId) {
+        return redissonClient.getBitSet(COUPON_ISSUED_KEY + policyId);
+    }
+}
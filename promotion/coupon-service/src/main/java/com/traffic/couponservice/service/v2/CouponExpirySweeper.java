@@ -0,0 +1,139 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.repository.CouponPolicyRepository;
+import com.traffic.couponservice.repository.CouponRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 종료된 쿠폰 정책의 미사용 쿠폰을 EXPIRED 로 변경
+ * Coupon.isExpired() 는 조회 시점에만 계산되므로, 상태로 필터링하는 쿠폰함 조회에 만료된 쿠폰이 AVAILABLE 로 남지 않도록 주기적으로 정리
+ * - 대상 정책 : lookback 기간 안에 종료된 정책 (idx_coupon_policy_end_time 범위 조회)
+ * - 대상 쿠폰 : AVAILABLE / CANCELLED (사용 취소된 쿠폰은 다시 사용할 수 있으므로 함께 만료)
+ * 정책별로 batch-size 건씩 ID 를 읽어 조건부 UPDATE 하고, 배치 사이에 pause 만큼 쉬며 주기당 max-batches-per-run 까지만 처리 (발급 트래픽과 DB 경합 방지)
+ * 변경한 쿠폰의 coupon:state 캐시는 삭제하여 다음 조회 시 DB 에서 다시 읽음
+ * 여러 노드 중 락을 얻은 한 노드만 실행
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "coupon.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class CouponExpirySweeper {
+    private static final String EXPIRY_LOCK_KEY = "coupon:expiry:lock";
+    private static final Set<Coupon.Status> EXPIRABLE_STATUSES = EnumSet.of(Coupon.Status.AVAILABLE, Coupon.Status.CANCELLED);
+
+    private final CouponPolicyRepository couponPolicyRepository;
+    private final CouponRepository couponRepository;
+    private final CouponStateService couponStateService;
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+
+    private Counter expiredCounter;
+    private Timer sweepTimer;
+
+    // 종료 후 이 기간이 지난 정책은 이미 정리된 것으로 보고 조회하지 않음
+    @Value("${coupon.expiry.lookback-days:7}")
+    private long lookbackDays;
+
+    @Value("${coupon.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${coupon.expiry.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    // 배치 사이 대기 시간
+    @Value("${coupon.expiry.pause-ms:100}")
+    private long pauseMillis;
+
+    // 실행 중인 노드가 죽어도 이 시간 이후 다른 노드가 실행
+    @Value("${coupon.expiry.lock-lease-seconds:300}")
+    private long lockLeaseSeconds;
+
+    @PostConstruct
+    void init() {
+        expiredCounter = Counter.builder("coupon.expiry.expired")
+                .description("EXPIRED 로 변경된 쿠폰 수")
+                .register(meterRegistry);
+        sweepTimer = Timer.builder("coupon.expiry.sweep")
+                .description("쿠폰 만료 처리 시간")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${coupon.expiry.interval-ms:600000}", fixedDelayString = "${coupon.expiry.interval-ms:600000}")
+    public void sweep() {
+        RLock lock = redissonClient.getLock(EXPIRY_LOCK_KEY);
+        long start = System.nanoTime();
+        try {
+            if (!lock.tryLock(0, lockLeaseSeconds, TimeUnit.SECONDS)) {
+                return;     // 다른 노드가 실행 중
+            }
+            try {
+                int expired = expireEndedPolicies();
+                if (expired > 0) {
+                    log.info("쿠폰 만료 처리: {}건", expired);
+                }
+            } finally {
+                if (lock.isHeldByCurrentThread()) {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("쿠폰 만료 처리 실패: {}", e.getMessage(), e);
+        } finally {
+            sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 만료 처리한 쿠폰 수 반환
+    int expireEndedPolicies() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> policyIds = couponPolicyRepository.findIdsByEndTimeBetween(now.minusDays(lookbackDays), now);
+
+        int expired = 0;
+        int batches = 0;
+        for (Long policyId : policyIds) {
+            while (batches < maxBatchesPerRun) {
+                List<Long> couponIds = couponRepository.findIdsByCouponPolicyIdAndStatusIn(policyId, EXPIRABLE_STATUSES, Limit.of(batchSize));
+                if (couponIds.isEmpty()) {
+                    break;
+                }
+                int updated = couponRepository.expireByIdIn(couponIds, EXPIRABLE_STATUSES);
+                couponStateService.evictCouponStates(couponIds);
+                expiredCounter.increment(updated);
+                expired += updated;
+                batches++;
+
+                if (couponIds.size() < batchSize) {
+                    break;      // 이 정책의 남은 쿠폰 없음
+                }
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+            if (batches >= maxBatchesPerRun) {
+                break;          // 나머지는 다음 주기에 이어서 처리
+            }
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,133 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
+import com.traffic.couponservice.exception.CouponIssueException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Lua 스크립트 기반 쿠폰 발급
+ * RLock 획득 -> 정책 조회 -> decrementAndGet -> (소진 시) incrementAndGet 으로 이어지던 여러 번의 Redis 왕복을
+ * 스크립트 한 번의 호출로 대체하여, 인기 정책의 발급 처리량이 락 대기 시간이 아닌 Redis 처리량을 따라가도록 함
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CouponIssueScriptService {
+    private static final String COUPON_QUANTITY_KEY = "coupon:quantity:";
+    private static final String SCRIPT_PATH = "scripts/coupon-issue.lua";
+
+    // 스크립트 반환 코드
+    private static final long SOLD_OUT = -1;
+    private static final long ALREADY_ISSUED = -2;
+    private static final long OUT_OF_PERIOD = -3;
+    private static final long QUANTITY_NOT_FOUND = -4;
+
+    // 발급 취소 : 발급 유저 비트 해제 + (수량 키가 있을 때만) 수량 복구, 수량 키가 없으면 -1
+    private static final String RESTORE_SCRIPT = """
+            redis.call('SETBIT', KEYS[2], ARGV[1], 0)
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return -1
+            end
+            return redis.call('INCR', KEYS[1])
+            """;
+
+    private final RedissonClient redissonClient;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final CouponDuplicateIssueGuard couponDuplicateIssueGuard;
+
+    private String script;
+    private volatile String scriptSha;
+
+    @PostConstruct
+    void loadScript() throws IOException {
+        try (InputStream in = new ClassPathResource(SCRIPT_PATH).getInputStream()) {
+            script = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 발급 가능 여부 확인과 수량 차감을 원자적으로 수행
+     * @return 발급 후 남은 수량
+     */
+    public long issue(CouponPolicySnapshot couponPolicy, Long userId) {
+        couponDuplicateIssueGuard.validateUserId(userId);
+        couponDuplicateIssueGuard.registerMetrics(couponPolicy);
+
+        List<Object> keys = List.of(
+                COUPON_QUANTITY_KEY + couponPolicy.getId(),
+                CouponDuplicateIssueGuard.COUPON_ISSUED_KEY + couponPolicy.getId());
+
+        long result = execute(keys,
+                String.valueOf(userId),
+                String.valueOf(couponPolicy.getStartEpochMilli()),
+                String.valueOf(couponPolicy.getEndEpochMilli()));
+
+        if (result == SOLD_OUT) {
+            couponSoldOutRegistry.markSoldOut(couponPolicy.getId());
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+        if (result == ALREADY_ISSUED) {
+            throw new CouponIssueException("이미 발급받은 쿠폰입니다. 더 이상 발급이 불가능 합니다");
+        }
+        if (result == OUT_OF_PERIOD) {
+            throw new CouponIssueException("쿠폰 발급 기간이 아닙니다.");
+        }
+        if (result == QUANTITY_NOT_FOUND) {
+            throw new CouponIssueException("쿠폰 수량 정보를 찾을 수 없습니다.");
+        }
+        if (result == 0) {
+            couponSoldOutRegistry.markSoldOut(couponPolicy.getId());   // 마지막 수량 발급
+        }
+        return result;
+    }
+
+    /**
+     * 수량 차감 / 발급 기록 이후 쿠폰 저장에 실패한 경우 둘 다 되돌려 다시 발급받을 수 있게 함
+     */
+    public void restore(Long policyId, Long userId) {
+        Long remaining = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RESTORE_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                List.of(COUPON_QUANTITY_KEY + policyId, CouponDuplicateIssueGuard.COUPON_ISSUED_KEY + policyId),
+                String.valueOf(userId));
+        if (remaining != null && remaining > 0) {
+            couponSoldOutRegistry.markAvailable(policyId);
+        }
+        log.warn("쿠폰 저장 실패로 수량 복구: policyId={}, userId={}, remaining={}", policyId, userId, remaining);
+    }
+
+    // EVALSHA로 스크립트 본문 전송을 생략하고, Redis 재시작 등으로 스크립트 캐시가 비어있으면(NOSCRIPT) 다시 로드
+    private long execute(List<Object> keys, Object... args) {
+        RScript rScript = redissonClient.getScript(StringCodec.INSTANCE);
+        String sha = scriptSha;
+        if (sha == null) {
+            sha = scriptSha = rScript.scriptLoad(script);
+        }
+
+        try {
+            Long result = rScript.evalSha(RScript.Mode.READ_WRITE, sha, RScript.ReturnType.INTEGER, keys, args);
+            return result;
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            log.warn("쿠폰 발급 스크립트가 Redis에 없어 다시 로드합니다.");
+            scriptSha = rScript.scriptLoad(script);
+            Long result = rScript.evalSha(RScript.Mode.READ_WRITE, scriptSha, RScript.ReturnType.INTEGER, keys, args);
+            return result;
+        }
+    }
+}
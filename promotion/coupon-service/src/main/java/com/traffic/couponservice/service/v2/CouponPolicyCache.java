@@ -0,0 +1,71 @@
+package com.traffic.couponservice.service.v2;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 쿠폰 정책 노드 로컬 캐시 (Caffeine -> Redis coupon:policy:{id} -> DB)
+ * 발급 중에는 정책이 거의 바뀌지 않으므로, 파싱된 정책 스냅샷을 로컬에 두어 발급 요청마다 Redis 조회 + JSON 파싱을 하지 않음
+ * 정책이 변경되면 Redis pub/sub 으로 모든 노드의 캐시를 비우고, pub/sub 메시지를 놓친 경우에 대비해 ttl 이 지나면 다시 읽음
+ * 캐시 적중률은 cache.gets{cache=coupon.policy, result=hit|miss} 로 노출
+ */
+@Slf4j
+@Component
+public class CouponPolicyCache {
+    private static final String POLICY_INVALIDATE_TOPIC = "coupon:policy:topic";
+    private static final String CACHE_NAME = "coupon.policy";
+
+    private final RedissonClient redissonClient;
+    private final Cache<Long, CouponPolicySnapshot> cache;
+
+    public CouponPolicyCache(RedissonClient redissonClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${coupon.policy.cache.max-size:1000}") long maxSize,
+                             @Value("${coupon.policy.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.redissonClient = redissonClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    // 캐시에 없으면 loader(Redis -> DB)로 읽어 스냅샷으로 저장, 같은 정책을 동시에 읽어도 loader 는 한 번만 호출
+    public CouponPolicySnapshot get(Long policyId, Function<Long, CouponPolicy> loader) {
+        return cache.get(policyId, id -> CouponPolicySnapshot.of(loader.apply(id)));
+    }
+
+    // 정책 생성/변경 후 호출, 모든 노드의 캐시에서 제거
+    public void invalidate(Long policyId) {
+        cache.invalidate(policyId);
+        topic().publish(String.valueOf(policyId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        topic().addListener(String.class, (channel, message) -> {
+            cache.invalidate(Long.valueOf(message));
+            log.info("쿠폰 정책 캐시 무효화: policyId={}", message);
+        });
+    }
+
+    private RTopic topic() {
+        return redissonClient.getTopic(POLICY_INVALIDATE_TOPIC, StringCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,167 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.config.CouponRedisCodecs;
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.dto.v1.CouponPolicyDto;
+import com.traffic.couponservice.repository.CouponPolicyRepository;
+import com.traffic.couponservice.repository.CouponRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBitSetAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 발급 기간이 진행 중이거나 곧 시작하는 쿠폰 정책의 Redis 키 워밍업
+ * Redis 장애 / flush 이후 또는 createCouponPolicy 를 거치지 않은 정책도 첫 발급 요청이 DB 조회나 없는 수량 키로 처리되지 않도록,
+ * 서버 시작 시와 주기적으로 coupon:policy:* 와 coupon:quantity:* 를 파이프라인 한 번으로 저장
+ * - 정책 : DB 값으로 덮어씀
+ * - 수량 : 키가 없을 때만 totalQuantity - DB 발급 수량 으로 설정 (이미 있는 키는 발급 중인 값이므로 유지)
+ *   수량 키가 없는 동안은 발급되지 않으므로, 수량 키를 만들기 전에 중복 발급 비트맵(coupon:issued:{policyId})을 DB 발급 유저로 복구하고
+ *   남은 수량이 0 이면 소진 Set(coupon:sold-out)에도 다시 기록
+ *   v3 는 Redis 차감 후 Kafka 로 저장하므로 키가 사라진 시점에 아직 저장되지 않은 메시지 수만큼 여유가 생길 수 있음
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "coupon.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+public class CouponPolicyWarmer {
+    private static final String COUPON_QUANTITY_KEY = "coupon:quantity:";
+    private static final String COUPON_POLICY_KEY = "coupon:policy:";
+    private static final int BITMAP_BATCH_SIZE = 10_000;
+
+    private final CouponPolicyRepository couponPolicyRepository;
+    private final CouponRepository couponRepository;
+    private final RedissonClient redissonClient;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final CouponRedisCodecs couponRedisCodecs;
+    private final MeterRegistry meterRegistry;
+
+    // 발급 시작 전 미리 워밍업할 시간
+    @Value("${coupon.warm-up.lead-seconds:600}")
+    private long leadSeconds;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        warmUp();
+    }
+
+    @Scheduled(initialDelayString = "${coupon.warm-up.interval-ms:300000}", fixedDelayString = "${coupon.warm-up.interval-ms:300000}")
+    public void warmUp() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "success";
+        try {
+            int restored = warmUpPolicies();
+            if (restored > 0) {
+                log.warn("쿠폰 수량 키 복구: {}건 (DB 발급 수량 기준)", restored);
+            }
+        } catch (Exception e) {
+            result = "failure";
+            log.error("쿠폰 정책 워밍업 실패: {}", e.getMessage(), e);
+        } finally {
+            long nanos = sample.stop(Timer.builder("coupon.policy.warm-up")
+                    .description("쿠폰 정책 / 수량 키 워밍업 시간")
+                    .tag("result", result)
+                    .register(meterRegistry));
+            log.info("쿠폰 정책 워밍업 완료: result={}, {} ms", result, nanos / 1_000_000);
+        }
+    }
+
+    // 워밍업 후 새로 설정된 수량 키 수 반환
+    private int warmUpPolicies() {
+        LocalDateTime now = LocalDateTime.now();
+        List<CouponPolicy> policies = couponPolicyRepository.findIssuablePolicies(now, now.plusSeconds(leadSeconds));
+        if (policies.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Long> issuedCounts = new HashMap<>();
+        for (Object[] row : couponRepository.countGroupByCouponPolicyIdIn(policies.stream().map(CouponPolicy::getId).toList())) {
+            issuedCounts.put((Long) row[0], (Long) row[1]);
+        }
+
+        // 정책 키는 덮어쓰고, 수량 키는 있는지만 확인 (응답은 명령 순서대로이므로 앞의 policies.size() 개가 수량 키 존재 여부)
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        policies.forEach(policy -> batch.<String>getBucket(COUPON_QUANTITY_KEY + policy.getId(), StringCodec.INSTANCE).isExistsAsync());
+        policies.forEach(policy -> batch.<CouponPolicyDto.Response>getBucket(COUPON_POLICY_KEY + policy.getId(), couponRedisCodecs.getCouponPolicyCodec())
+                .setAsync(CouponPolicyDto.Response.from(policy)));
+        List<?> exists = batch.execute().getResponses();
+        log.info("쿠폰 정책 워밍업: 정책 {}건", policies.size());
+
+        List<CouponPolicy> missing = IntStream.range(0, policies.size())
+                .filter(i -> !Boolean.TRUE.equals(exists.get(i)))
+                .mapToObj(policies::get)
+                .toList();
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        // 비트맵을 먼저 복구해야 수량 키가 생긴 직후의 발급 요청이 이미 발급받은 유저를 통과시키지 않음
+        missing.forEach(policy -> rebuildIssuedBitmap(policy.getId()));
+
+        RBatch quantityBatch = redissonClient.createBatch(BatchOptions.defaults());
+        List<Long> remainings = missing.stream()
+                .map(policy -> Math.max(0, policy.getTotalQuantity() - issuedCounts.getOrDefault(policy.getId(), 0L)))
+                .toList();
+        // RAtomicLong 과 같은 형식(숫자 문자열)으로 키가 없을 때만 저장
+        for (int i = 0; i < missing.size(); i++) {
+            quantityBatch.<String>getBucket(COUPON_QUANTITY_KEY + missing.get(i).getId(), StringCodec.INSTANCE)
+                    .setIfAbsentAsync(String.valueOf(remainings.get(i)));
+        }
+        List<?> created = quantityBatch.execute().getResponses();
+
+        int restored = 0;
+        for (int i = 0; i < missing.size(); i++) {
+            if (!Boolean.TRUE.equals(created.get(i))) {
+                continue;   // 그 사이 다른 노드가 먼저 복구함
+            }
+            restored++;
+            if (remainings.get(i) == 0) {
+                couponSoldOutRegistry.restoreSoldOut(missing.get(i).getId());
+            }
+        }
+        return restored;
+    }
+
+    // 발급 유저 비트를 OR 로만 기록 (처리 중인 v3 발급의 비트를 지우지 않도록 기존 비트맵은 지우지 않음)
+    // 발급 유저가 수백만 명이어도 힙에 모두 올리지 않도록 쿠폰 ID 커서로 BITMAP_BATCH_SIZE 건씩 읽어 기록
+    private void rebuildIssuedBitmap(Long policyId) {
+        long cursor = 0;
+        long users = 0;
+        while (true) {
+            List<Object[]> rows = couponRepository.findIdAndUserIdByCouponPolicyIdAndIdGreaterThan(
+                    policyId, cursor, Limit.of(BITMAP_BATCH_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+            RBitSetAsync bitSet = batch.getBitSet(CouponDuplicateIssueGuard.COUPON_ISSUED_KEY + policyId);
+            rows.forEach(row -> bitSet.setAsync((Long) row[1]));
+            batch.execute();
+
+            users += rows.size();
+            cursor = (Long) rows.get(rows.size() - 1)[0];
+            if (rows.size() < BITMAP_BATCH_SIZE) {
+                break;
+            }
+        }
+        log.info("중복 발급 비트맵 복구: policyId={}, users={}", policyId, users);
+    }
+}
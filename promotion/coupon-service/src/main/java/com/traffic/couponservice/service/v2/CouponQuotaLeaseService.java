@@ -0,0 +1,196 @@
+package com.traffic.couponservice.service.v2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 노드 로컬 쿠폰 수량 임대(Lease)
+ * 각 노드가 coupon:quantity:{policyId} 에서 수량을 블록 단위로 미리 가져와 로컬 AtomicLong 으로 발급하고,
+ * 블록을 모두 사용했을 때만 Redis에 다시 접근함
+ * Redis에서 빠져나간 수량 = 발급된 수량 + 각 노드가 들고 있는 미사용 수량 이므로 총 발급량은 totalQuantity를 넘지 않음
+ * 미사용 수량은 임대 만료 시 또는 서버 종료 시 Redis로 반환 (노드가 비정상 종료되면 해당 블록은 미발급으로 남음)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CouponQuotaLeaseService {
+    private static final String COUPON_QUANTITY_KEY = "coupon:quantity:";
+
+    // 남은 수량과 요청 블록 크기 중 작은 값만큼 차감하고 차감한 수량을 반환 (-1 = 수량 정보 없음)
+    private static final String LEASE_SCRIPT = """
+            local quantity = tonumber(redis.call('GET', KEYS[1]))
+            if quantity == nil then
+                return -1
+            end
+            local block = math.min(quantity, tonumber(ARGV[1]))
+            if block <= 0 then
+                return 0
+            end
+            redis.call('DECRBY', KEYS[1], block)
+            return block
+            """;
+
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+
+    private final ConcurrentMap<Long, QuotaLease> leases = new ConcurrentHashMap<>();
+
+    // 한 번에 임대할 수량
+    @Value("${coupon.issue.lease.block-size:500}")
+    private long blockSize;
+
+    // 임대 유지 시간, 이 시간 동안 추가 임대가 없으면 남은 수량을 반환
+    @Value("${coupon.issue.lease.ttl-seconds:30}")
+    private long leaseTtlSeconds;
+
+    /**
+     * 로컬 임대 수량에서 1개 차감, 로컬 수량이 없으면 Redis에서 새 블록을 임대
+     * @return 발급 가능하면 true, 전체 수량이 소진되었으면 false
+     */
+    public boolean tryAcquire(Long policyId) {
+        QuotaLease lease = leases.computeIfAbsent(policyId, id -> new QuotaLease());
+        while (true) {
+            if (lease.tryTake()) {
+                return true;
+            }
+            // 로컬 임대분이 없고 이미 소진된 정책이면 Redis 접근 없이 종료
+            if (couponSoldOutRegistry.isSoldOut(policyId)) {
+                return false;
+            }
+            if (!refill(policyId, lease)) {
+                return false;
+            }
+        }
+    }
+
+    // 소진된 정책이고 이 노드에 남은 임대 수량도 없으면 true (중복 발급 비트를 기록하기 전에 확인하여 Redis 왕복 없이 거절)
+    public boolean isSoldOut(Long policyId) {
+        if (!couponSoldOutRegistry.isSoldOut(policyId)) {
+            return false;
+        }
+        QuotaLease lease = leases.get(policyId);
+        return lease == null || lease.remaining.get() <= 0;
+    }
+
+    // 발급 처리 중 오류가 발생한 경우 차감했던 수량을 로컬 임대분으로 되돌림
+    public void release(Long policyId) {
+        QuotaLease lease = leases.get(policyId);
+        if (lease != null) {
+            lease.remaining.incrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.issue.lease.sweep-interval-ms:5000}")
+    public void returnExpiredLeases() {
+        long now = System.currentTimeMillis();
+        leases.forEach((policyId, lease) -> {
+            if (lease.expiresAt <= now) {
+                returnLease(policyId, lease);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void returnAllLeases() {
+        leases.forEach(this::returnLease);
+    }
+
+    private boolean refill(Long policyId, QuotaLease lease) {
+        // 같은 정책에 대해 동시에 여러 스레드가 임대하지 않도록 정책 단위로 잠금
+        lease.lock.lock();
+        try {
+            if (lease.remaining.get() > 0) {
+                return true;    // 대기하는 동안 다른 스레드가 이미 임대함
+            }
+
+            long leased = leaseBlock(policyId);
+            if (leased < 0) {
+                log.warn("쿠폰 수량 정보가 없어 임대할 수 없습니다. policyId={}", policyId);
+                return false;
+            }
+            if (leased == 0) {
+                couponSoldOutRegistry.markSoldOut(policyId);
+                return false;
+            }
+
+            lease.remaining.addAndGet(leased);
+            lease.expiresAt = System.currentTimeMillis() + leaseTtlSeconds * 1000;
+            Counter.builder("coupon.quota.lease.leased")
+                    .tag("policyId", String.valueOf(policyId))
+                    .register(meterRegistry)
+                    .increment(leased);
+            log.info("쿠폰 수량 임대: policyId={}, quantity={}", policyId, leased);
+            return true;
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    private long leaseBlock(Long policyId) {
+        RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+        Long leased = script.eval(RScript.Mode.READ_WRITE, LEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(COUPON_QUANTITY_KEY + policyId), String.valueOf(blockSize));
+        return leased;
+    }
+
+    private void returnLease(Long policyId, QuotaLease lease) {
+        lease.lock.lock();
+        long unused = 0;
+        try {
+            unused = lease.remaining.getAndSet(0);
+            if (unused <= 0) {
+                return;
+            }
+            redissonClient.getAtomicLong(COUPON_QUANTITY_KEY + policyId).addAndGet(unused);
+            // 다른 노드들이 다시 임대할 수 있도록 소진 상태 해제
+            if (couponSoldOutRegistry.isSoldOut(policyId)) {
+                couponSoldOutRegistry.markAvailable(policyId);
+            }
+            Counter.builder("coupon.quota.lease.returned")
+                    .tag("policyId", String.valueOf(policyId))
+                    .register(meterRegistry)
+                    .increment(unused);
+            log.info("미사용 쿠폰 수량 반환: policyId={}, quantity={}", policyId, unused);
+        } catch (Exception e) {
+            // 반환에 실패한 수량은 로컬에 되돌려 두고 다음 주기에 다시 반환 시도
+            lease.remaining.addAndGet(unused);
+            log.error("쿠폰 수량 반환 실패: policyId={}, error={}", policyId, e.getMessage());
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    private static class QuotaLease {
+        private final AtomicLong remaining = new AtomicLong();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long expiresAt;
+
+        // 남은 수량이 있을 때만 1 차감 (음수가 되지 않도록 CAS 사용)
+        private boolean tryTake() {
+            long current;
+            do {
+                current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
+}
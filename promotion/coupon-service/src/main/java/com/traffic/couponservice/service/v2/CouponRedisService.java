@@ -3,20 +3,22 @@ package com.traffic.couponservice.service.v2;
 import com.traffic.couponservice.aop.CouponMetered;
 import com.traffic.couponservice.config.UserIdInterceptor;
 import com.traffic.couponservice.domain.Coupon;
-import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
 import com.traffic.couponservice.dto.v1.CouponDto;
 import com.traffic.couponservice.exception.CouponIssueException;
 import com.traffic.couponservice.repository.CouponRepository;
+import com.traffic.couponservice.service.CouponCodeGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RAtomicLong;
 import org.redisson.api.RLock;
-import org.redisson.api.RSet;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.LocalDateTime;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -26,27 +28,44 @@ public class CouponRedisService {
     private final RedissonClient redissonClient;
     private final CouponRepository couponRepository;
     private final CouponPolicyService couponPolicyService;
+    private final CouponIssueScriptService couponIssueScriptService;
+    private final CouponQuotaLeaseService couponQuotaLeaseService;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final CouponDuplicateIssueGuard couponDuplicateIssueGuard;
+    private final CouponCodeGenerator couponCodeGenerator;
 
+    // 발급 방식 (lock : RLock + RAtomicLong, script : Lua 스크립트 단일 호출, lease : 노드 로컬 임대 수량)
+    @Value("${coupon.issue.mode:lock}")
+    private String issueMode;
+
+    private static final String ISSUE_MODE_SCRIPT = "script";
+    private static final String ISSUE_MODE_LEASE = "lease";
     private static final String COUPON_QUANTITY_KEY = "coupon:quantity:";
     private static final String COUPON_LOCK_KEY = "coupon:lock:";
-    private static final String COUPON_USER_ID = "coupon:userId:";
     private static final long LOCK_WAIT_TIME = 3;       // Lock 대기 시간 제한
     private static final long LOCK_LEASE_TIME = 5;      // 자동 만료 시간
 
     @Transactional
     @CouponMetered(version = "v2")
     public Coupon issueCoupon(CouponDto.IssueRequest request){
+        if (ISSUE_MODE_SCRIPT.equals(issueMode)) {
+            return issueCouponWithScript(request);
+        }
+        if (ISSUE_MODE_LEASE.equals(issueMode)) {
+            return issueCouponWithLease(request);
+        }
+
+        // 이미 소진된 정책이면 락/Redis 접근 없이 바로 거절
+        if (couponSoldOutRegistry.isSoldOut(request.getCouponPolicyId())) {
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
         String quantityKey = COUPON_QUANTITY_KEY + request.getCouponPolicyId();
         String lockKey = COUPON_LOCK_KEY + request.getCouponPolicyId();
         RLock lock = redissonClient.getLock(lockKey);
 
         try {
-//            // 이미 발급받은 유저인지 확인
             Long userId = UserIdInterceptor.getCurrentUserId();     // InterCepter를 통한 현재 Header에 저장되어 있는 UserId값 추출
-//            RSet<Long> userIdSet = redissonClient.getSet(COUPON_USER_ID+userId);
-//            if(userIdSet.contains(userId)){
-//                throw new CouponIssueException("이미 발급받은 쿠폰입니다. 더 이상 발급이 불가능 합니다");
-//            }
 
             // Redis에서 Lock 시간 설정
             // 여기서 락을 걸어주는 이유는 동시에 2명의 유저가 접속했을때 해당 쿠폰 정책을 동시에 읽게 되면 decrementAndGet 기능이
@@ -57,33 +76,43 @@ public class CouponRedisService {
                 throw new CouponIssueException("쿠폰 발급 요청이 많아 쿠폰 발급이 불가능 합니다. 잠시 후 다시 시도해주세요");
             }
 
-            CouponPolicy couponPolicy = couponPolicyService.getCouponPolicy(request.getCouponPolicyId());
+            CouponPolicySnapshot couponPolicy = couponPolicyService.getCouponPolicySnapshot(request.getCouponPolicyId());
 
-            LocalDateTime now = LocalDateTime.now();
-            if (now.isBefore(couponPolicy.getStartTime()) || now.isAfter(couponPolicy.getEndTime())) {
+            if (!couponPolicy.isInIssuePeriod(System.currentTimeMillis())) {
                 throw new IllegalStateException("쿠폰 발급 기간이 아닙니다.");
             }
 
-            // 쿠폰 사용하여 수량 체크 및 감소
+            // 수량 키가 없으면(Redis flush 등) CouponPolicyWarmer 가 중복 발급 비트맵을 복구하고 수량 키를 만들 때까지 발급하지 않음
+            // 없는 키에 decrementAndGet 하면 키가 0 으로 생겨 워밍업이 수량을 복구하지 못함
             RAtomicLong atomicQuantity = redissonClient.getAtomicLong(quantityKey);
+            if (!atomicQuantity.isExists()) {
+                throw new CouponIssueException("쿠폰 수량 정보를 찾을 수 없습니다.");
+            }
+
+            // 중복 발급 확인 및 기록 (비트맵 SETBIT 한 번으로 처리)
+            couponDuplicateIssueGuard.markIssued(couponPolicy, userId);
+
+            // 쿠폰 사용하여 수량 체크 및 감소
             long remainingQuantity = atomicQuantity.decrementAndGet();
 
             // 발급할 쿠폰이 없다면
             if (remainingQuantity < 0) {
                 // 음수의 값으로 유지하게 되면 오류가 발생할 수 있기에 다시 증가 시켜줌
                 atomicQuantity.incrementAndGet();
+                couponDuplicateIssueGuard.release(request.getCouponPolicyId(), userId);
+                couponSoldOutRegistry.markSoldOut(request.getCouponPolicyId());
                 throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
             }
-
-//            //  중복 유저 발급을 방지하기 위한 Redis Set에 UserId 저장
-//            userIdSet.add(userId);
+            if (remainingQuantity == 0) {
+                couponSoldOutRegistry.markSoldOut(request.getCouponPolicyId());    // 마지막 수량 발급
+            }
 
             // 쿠폰 발급
-            return couponRepository.save(Coupon.builder()
-                    .couponPolicy(couponPolicy)
+            return saveOrRestore(Coupon.builder()
+                    .couponPolicy(couponPolicy.getPolicy())
                     .userId(userId)
-                    .couponCode(generateCouponCode())
-                    .build());
+                    .couponCode(couponCodeGenerator.generate())
+                    .build(), () -> couponIssueScriptService.restore(request.getCouponPolicyId(), userId));
             }catch (InterruptedException e){
             // Lock인 상태에서 인터럽트 요청이 들어오면 해당 메서드는 즉시 종료되고 InterruptedException이 발생
             // InterruptedException이 발생하면 인터럽트 상태 플래그가 초기화되므로,
@@ -97,7 +126,79 @@ public class CouponRedisService {
             }
     }
 
-    private String generateCouponCode() {
-        return java.util.UUID.randomUUID().toString().substring(0, 8);
+    // 락 없이 Lua 스크립트 한 번으로 기간/중복/수량 확인 및 차감
+    private Coupon issueCouponWithScript(CouponDto.IssueRequest request) {
+        if (couponSoldOutRegistry.isSoldOut(request.getCouponPolicyId())) {
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
+        Long userId = UserIdInterceptor.getCurrentUserId();
+        CouponPolicySnapshot couponPolicy = couponPolicyService.getCouponPolicySnapshot(request.getCouponPolicyId());
+
+        couponIssueScriptService.issue(couponPolicy, userId);
+
+        return saveOrRestore(Coupon.builder()
+                .couponPolicy(couponPolicy.getPolicy())
+                .userId(userId)
+                .couponCode(couponCodeGenerator.generate())
+                .build(), () -> couponIssueScriptService.restore(couponPolicy.getId(), userId));
+    }
+
+    // 노드가 임대한 로컬 수량에서 차감, 블록을 모두 사용했을 때만 Redis 접근
+    private Coupon issueCouponWithLease(CouponDto.IssueRequest request) {
+        // 소진된 정책은 중복 발급 비트 기록(SETBIT)과 되돌리기 없이 바로 거절 (이 노드에 남은 임대 수량이 있으면 계속 발급)
+        if (couponQuotaLeaseService.isSoldOut(request.getCouponPolicyId())) {
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
+        Long userId = UserIdInterceptor.getCurrentUserId();
+        CouponPolicySnapshot couponPolicy = couponPolicyService.getCouponPolicySnapshot(request.getCouponPolicyId());
+
+        if (!couponPolicy.isInIssuePeriod(System.currentTimeMillis())) {
+            throw new CouponIssueException("쿠폰 발급 기간이 아닙니다.");
+        }
+
+        couponDuplicateIssueGuard.markIssued(couponPolicy, userId);
+        if (!couponQuotaLeaseService.tryAcquire(couponPolicy.getId())) {
+            couponDuplicateIssueGuard.release(couponPolicy.getId(), userId);
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
+        return saveOrRestore(Coupon.builder()
+                .couponPolicy(couponPolicy.getPolicy())
+                .userId(userId)
+                .couponCode(couponCodeGenerator.generate())
+                .build(), () -> {
+            couponQuotaLeaseService.release(couponPolicy.getId());
+            couponDuplicateIssueGuard.release(couponPolicy.getId(), userId);
+        });
+    }
+
+    // 쿠폰 저장이 롤백되면(save 예외, 커밋 시점 INSERT 실패 포함) 차감한 수량과 중복 발급 기록을 되돌림
+    // Snowflake ID 라 INSERT 가 커밋 시점에 실행되므로 save() 예외만 잡으면 커밋 실패를 놓침
+    private Coupon saveOrRestore(Coupon coupon, Runnable restore) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                return couponRepository.save(coupon);
+            } catch (RuntimeException e) {
+                restore.run();
+                throw e;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    restore.run();
+                } catch (Exception e) {
+                    log.error("쿠폰 발급 취소 복구 실패: policyId={}, userId={}, error={}",
+                            coupon.getCouponPolicy().getId(), coupon.getUserId(), e.getMessage());
+                }
+            }
+        });
+        return couponRepository.save(coupon);
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.traffic.couponservice.service.v2;
 
 import com.traffic.couponservice.domain.Coupon;
 import com.traffic.couponservice.dto.v1.CouponDto;
+import com.traffic.couponservice.exception.CouponAlreadyUsedException;
 import com.traffic.couponservice.exception.CouponNotFoundException;
 import com.traffic.couponservice.repository.CouponRepository;
 
@@ -9,6 +10,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
 @Service("couponServiceV2")
 @RequiredArgsConstructor
 public class CouponService {
@@ -21,19 +24,26 @@ public class CouponService {
     public CouponDto.Response issueCoupon(CouponDto.IssueRequest request){
 
         Coupon coupon = couponRedisService.issueCoupon(request);
-        couponStateService.updateCouponState(couponRepository.findById(coupon.getId())
-                .orElseThrow(() -> new CouponNotFoundException("쿠폰을 찾을 수 없습니다.")));
+        // 방금 저장한 쿠폰이므로 다시 조회하지 않고 커밋 이후 상태 저장 대기열에 추가
+        couponStateService.updateCouponState(coupon);
         
         return CouponDto.Response.from(coupon);
     }
     
     // 쿠폰 사용
+    // 락 없이 조회 후 검증하고, 조회한 상태에서 바뀌지 않았을 때만 조건부 UPDATE (동시에 사용하면 한 요청만 성공)
     @Transactional
     public CouponDto.Response useCoupon(Long couponId, Long orderId){
-        Coupon coupon = couponRepository.findByIdWithLock(couponId)
+        Coupon coupon = couponRepository.findByIdWithPolicy(couponId)
                 .orElseThrow(() -> new CouponNotFoundException("쿠폰을 찾을 수 없습니다."));
 
-        coupon.use(orderId);
+        coupon.validateUse();
+        LocalDateTime usedAt = LocalDateTime.now();
+        if (couponRepository.compareAndSetStatus(couponId, coupon.getStatus(), coupon.getVersion(), Coupon.Status.USED, orderId, usedAt) == 0) {
+            throw new CouponAlreadyUsedException("이미 사용된 쿠폰입니다.");
+        }
+        // DB 에 반영한 상태를 (준영속) 엔티티에도 반영
+        coupon.use(orderId, usedAt);
         // 쿠폰 상태값을 use로 변경
         couponStateService.updateCouponState(coupon);
 
@@ -43,9 +53,13 @@ public class CouponService {
     // 쿠폰 취소
     @Transactional
     public CouponDto.Response cancelCoupon(Long couponId){
-        Coupon coupon = couponRepository.findByIdWithLock(couponId)
+        Coupon coupon = couponRepository.findByIdWithPolicy(couponId)
                 .orElseThrow(() -> new CouponNotFoundException("쿠폰을 찾을 수 없습니다."));
 
+        coupon.validateCancel();
+        if (couponRepository.compareAndSetStatus(couponId, Coupon.Status.USED, coupon.getVersion(), Coupon.Status.CANCELLED, null, null) == 0) {
+            throw new IllegalStateException("사용되지 않은 쿠폰입니다.");
+        }
         coupon.cancel();
         // 쿠폰 상태값을 use로 변경
         couponStateService.updateCouponState(coupon);
@@ -0,0 +1,105 @@
+package com.traffic.couponservice.service.v2;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RSet;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 쿠폰 소진 정보를 노드 로컬에 보관
+ * 정책 수량이 0이 되면 Redis pub/sub 으로 모든 노드에 알리고, 각 노드는 로컬 Set 만으로 발급 요청을 바로 거절함
+ * 노드 재시작 시에는 coupon:sold-out Set 에서 다시 불러오며, 수량이 다시 채워지면 모든 노드에서 해제
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponSoldOutRegistry {
+    private static final String SOLD_OUT_SET_KEY = "coupon:sold-out";
+    private static final String SOLD_OUT_TOPIC = "coupon:sold-out:topic";
+    private static final String SOLD_OUT = "SOLD_OUT";
+    private static final String AVAILABLE = "AVAILABLE";
+
+    private final RedissonClient redissonClient;
+
+    private final Set<Long> soldOutPolicies = ConcurrentHashMap.newKeySet();
+
+    // 네트워크 호출 없이 로컬에서만 확인
+    public boolean isSoldOut(Long policyId) {
+        return soldOutPolicies.contains(policyId);
+    }
+
+    // 수량이 0이 된 정책을 모든 노드에 전파
+    public void markSoldOut(Long policyId) {
+        if (!soldOutPolicies.add(policyId)) {
+            return;     // 이미 이 노드에서 소진 처리됨
+        }
+        soldOutSet().add(String.valueOf(policyId));
+        topic().publish(SOLD_OUT + ":" + policyId);
+        log.info("쿠폰 소진 전파: policyId={}", policyId);
+    }
+
+    // Redis flush 등으로 coupon:sold-out Set 이 사라졌을 때 로컬 상태와 관계없이 다시 기록 (CouponPolicyWarmer)
+    public void restoreSoldOut(Long policyId) {
+        soldOutPolicies.add(policyId);
+        if (soldOutSet().add(String.valueOf(policyId))) {
+            topic().publish(SOLD_OUT + ":" + policyId);
+            log.info("쿠폰 소진 복구: policyId={}", policyId);
+        }
+    }
+
+    // 수량이 다시 채워진 정책을 모든 노드에서 해제
+    public void markAvailable(Long policyId) {
+        soldOutPolicies.remove(policyId);
+        if (soldOutSet().remove(String.valueOf(policyId))) {
+            topic().publish(AVAILABLE + ":" + policyId);
+            log.info("쿠폰 소진 해제 전파: policyId={}", policyId);
+        }
+    }
+
+    // 구독을 먼저 등록한 뒤 Set 을 불러와야 그 사이에 발생한 소진 알림을 놓치지 않음
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        topic().addListener(String.class, (channel, message) -> apply(message));
+        reload();
+    }
+
+    // pub/sub 은 연결이 끊긴 동안의 메시지를 보장하지 않으므로 주기적으로 Redis Set 과 동기화
+    @Scheduled(fixedDelayString = "${coupon.sold-out.resync-interval-ms:60000}")
+    public void reload() {
+        Set<String> members = soldOutSet().readAll();
+        Set<Long> latest = ConcurrentHashMap.newKeySet();
+        members.forEach(member -> latest.add(Long.valueOf(member)));
+
+        soldOutPolicies.retainAll(latest);
+        soldOutPolicies.addAll(latest);
+    }
+
+    private void apply(String message) {
+        int separator = message.indexOf(':');
+        String type = message.substring(0, separator);
+        Long policyId = Long.valueOf(message.substring(separator + 1));
+
+        if (SOLD_OUT.equals(type)) {
+            soldOutPolicies.add(policyId);
+        } else if (AVAILABLE.equals(type)) {
+            soldOutPolicies.remove(policyId);
+        }
+    }
+
+    private RSet<String> soldOutSet() {
+        return redissonClient.getSet(SOLD_OUT_SET_KEY, StringCodec.INSTANCE);
+    }
+
+    private RTopic topic() {
+        return redissonClient.getTopic(SOLD_OUT_TOPIC, StringCodec.INSTANCE);
+    }
+}
@@ -1,59 +1,316 @@
 package com.traffic.couponservice.service.v2;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.couponservice.config.CouponRedisCodecs;
 import com.traffic.couponservice.domain.Coupon;
 import com.traffic.couponservice.dto.v1.CouponDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RBucket;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.LongCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿠폰 상태(coupon:state:{couponId}) Redis 캐시 write-behind
+ * 발급 / 사용 / 취소 시 트랜잭션 커밋 이후 대기열에 넣고, 스케줄러가 모아서 파이프라인(RBatch) 한 번으로 저장
+ * 요청 스레드는 Redis 응답을 기다리지 않으며, 롤백된 트랜잭션의 상태는 캐시에 반영되지 않음
+ * 대기열은 쿠폰 ID 별 최신 상태만 보관 (같은 쿠폰의 변경은 마지막 상태만 저장하고, 저장 중 들어온 변경은 다음 배치에서 저장)
+ * 상태 키는 해시 {version, state} 로 저장하고, DB 의 쿠폰 version 보다 낮은 상태는 Lua 스크립트에서 버림
+ * (여러 노드의 커밋 이후 저장 순서가 뒤바뀌어도 나중 상태를 이전 상태가 덮어쓰지 않음)
+ * 상태 키는 정책 종료 시각 + grace 이후 만료되며, 만료된 키는 getCoupon 에서 DB 로 조회 후 다시 저장
+ * 정책별 상태 키 수는 HyperLogLog(coupon:state-count:{policyId}) 로 세고, 같은 TTL 을 주어 상태 키와 함께 만료시킴
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CouponStateService {
 
     private final RedissonClient redissonClient;
-    private final ObjectMapper objectMapper;
+    private final CouponRedisCodecs couponRedisCodecs;
+    private final MeterRegistry meterRegistry;
 
     private static final String COUPON_STATE_KEY = "coupon:state:";
+    private static final String COUPON_STATE_COUNT_KEY = "coupon:state-count:";
 
-    /**
+    // 이전 형식(문자열)으로 남은 키는 삭제하고 새로 저장
+    // 저장된 version 이 ARGV[1] 보다 크면 무시, 아니면 {version, state} 저장 후 TTL(ARGV[3] ms) 설정
+    private static final String WRITE_SCRIPT = """
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then
+                redis.call('DEL', KEYS[1])
+            end
+            local current = redis.call('HGET', KEYS[1], 'version')
+            if current and tonumber(current) > tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'version', ARGV[1], 'state', ARGV[2])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """;
 
-     */
-    public void updateCouponState(Coupon coupon) {
-        try {
-            String stateKey = COUPON_STATE_KEY + coupon.getId();
-            String couponJson = objectMapper.writeValueAsString(CouponDto.Response.from(coupon));
-            RBucket<String> bucket = redissonClient.getBucket(stateKey);
-            bucket.set(couponJson);
+    // 해시가 아닌 키(이전 형식)는 삭제하고 캐시 미스(nil)로 처리, 이후 DB 에서 읽어 새 형식으로 저장
+    private static final String READ_SCRIPT = """
+            local keyType = redis.call('TYPE', KEYS[1]).ok
+            if keyType == 'hash' then
+                return redis.call('HGET', KEYS[1], 'state')
+            end
+            if keyType ~= 'none' then
+                redis.call('DEL', KEYS[1])
+            end
+            return false
+            """;
 
-            log.info("Coupon state updated: {}", coupon.getId());
+    private final ConcurrentMap<Long, PendingState> pendingStates = new ConcurrentHashMap<>();
+    // 이 노드가 상태를 저장한 정책별 최근 쿠폰 ID (키 메모리 샘플링용)
+    private final ConcurrentMap<Long, Long> sampleCoupons = new ConcurrentHashMap<>();
 
-        } catch (Exception e) {
-            log.error("Error updating coupon state: {}", e.getMessage(), e);
-            throw new RuntimeException("쿠폰 상태 업데이트 중 오류가 발생했습니다.", e);
+    private Timer flushTimer;
+    private Counter droppedCounter;
+    private MultiGauge stateKeys;
+    private MultiGauge stateMemory;
+
+    // 정책 종료 이후에도 상태 키를 보관할 시간 (종료 직후 조회 / 사용 취소 대비)
+    @Value("${coupon.state.ttl.grace-seconds:86400}")
+    private long graceSeconds;
+
+    // 대기열에 보관할 최대 쿠폰 수, 초과하면 변경을 버리고 coupon.state.write.dropped 증가
+    @Value("${coupon.state.write-behind.queue-capacity:100000}")
+    private int queueCapacity;
+
+    // 파이프라인 한 번에 저장할 최대 쿠폰 수
+    @Value("${coupon.state.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("coupon.state.write.queue", pendingStates, Map::size)
+                .description("Redis 저장을 기다리는 쿠폰 상태 수")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("coupon.state.write.flush")
+                .description("쿠폰 상태 배치 저장 시간")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("coupon.state.write.dropped")
+                .description("대기열이 가득 차 버린 쿠폰 상태 변경 수")
+                .register(meterRegistry);
+        stateKeys = MultiGauge.builder("coupon.state.keys")
+                .description("정책별 coupon:state 키 수 (HyperLogLog 추정값)")
+                .register(meterRegistry);
+        stateMemory = MultiGauge.builder("coupon.state.memory")
+                .description("정책별 coupon:state 키 메모리 추정값 (샘플 키 MEMORY USAGE x 키 수)")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+        쿠폰 상태를 Redis 저장 대기열에 추가 (트랜잭션 안에서 호출되면 커밋 이후에 추가)
+     */
+    public void updateCouponState(Coupon coupon) {
+        // 커밋 이후에는 지연 로딩을 할 수 없으므로 호출 시점의 상태로 응답 생성
+        PendingState state = new PendingState(coupon.getVersion(), coupon.getCouponPolicy().getId(),
+                CouponDto.Response.from(coupon));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(coupon.getId(), state);
+                }
+            });
+            return;
         }
+        enqueue(coupon.getId(), state);
     }
 
     /**
         현재 발급된 쿠폰 데이터 가져옴 (사용한 쿠폰인지 아닌지)
      */
     public CouponDto.Response getCouponState(Long couponId) {
+        // 아직 저장되지 않은 변경이 있으면 그 상태를 반환
+        PendingState pending = pendingStates.get(couponId);
+        if (pending != null) {
+            return pending.response();
+        }
+        try {
+            // 저장된 값이 없거나 이전 형식으로 저장된 값이면 null
+            return redissonClient.getScript(couponRedisCodecs.getCouponStateCodec()).eval(RScript.Mode.READ_WRITE,
+                    READ_SCRIPT, RScript.ReturnType.VALUE, List.of(COUPON_STATE_KEY + couponId));
+        } catch (Exception e) {
+            log.error("Error getting coupon state: {}", e.getMessage(), e);
+            throw new RuntimeException("쿠폰 상태 조회 중 오류가 발생했습니다.", e);
+        }
+    }
+
+    /**
+        쿠폰 상태 캐시 삭제 (대기 중인 변경도 버림), 이후 조회는 DB 에서 읽어 다시 저장
+     */
+    public void evictCouponStates(Collection<Long> couponIds) {
+        if (couponIds.isEmpty()) {
+            return;
+        }
+        couponIds.forEach(pendingStates::remove);
+        try {
+            RBatch rBatch = redissonClient.createBatch(BatchOptions.defaults());
+            couponIds.forEach(couponId -> rBatch.getBucket(COUPON_STATE_KEY + couponId).deleteAsync());
+            rBatch.execute();
+        } catch (Exception e) {
+            // 삭제하지 못한 키는 정책 종료 시각 + grace 이후 만료됨
+            log.warn("Error evicting coupon states: count={}, error={}", couponIds.size(), e.getMessage());
+        }
+    }
+
+    // 대기열이 빌 때까지 batch-size 단위로 저장, 저장에 실패하면 대기열에 남겨 다음 주기에 다시 저장
+    @Scheduled(fixedDelayString = "${coupon.state.write-behind.flush-interval-ms:50}")
+    public void flush() {
+        while (!pendingStates.isEmpty()) {
+            if (!flushBatch()) {
+                return;
+            }
+        }
+    }
+
+    // 이 노드가 저장한 정책별 상태 키 수와 메모리 사용량 추정 (캠페인 규모별 Redis 메모리 산정용)
+    @Scheduled(fixedDelayString = "${coupon.state.metrics.interval-ms:60000}")
+    public void reportStateUsage() {
+        List<MultiGauge.Row<?>> keyRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> memoryRows = new ArrayList<>();
         try {
-            String stateKey = COUPON_STATE_KEY + couponId;
-            RBucket<String> bucket = redissonClient.getBucket(stateKey);
-            String couponJson = bucket.get();
+            for (Map.Entry<Long, Long> sample : sampleCoupons.entrySet()) {
+                long keys = redissonClient.getHyperLogLog(COUPON_STATE_COUNT_KEY + sample.getKey(), LongCodec.INSTANCE).count();
+                if (keys == 0) {
+                    sampleCoupons.remove(sample.getKey(), sample.getValue());   // 정책 상태 키가 모두 만료됨
+                    continue;
+                }
+                long sampleBytes = redissonClient.getBucket(COUPON_STATE_KEY + sample.getValue()).sizeInMemory();
+                Tags tags = Tags.of("policyId", String.valueOf(sample.getKey()));
+                keyRows.add(MultiGauge.Row.of(tags, keys));
+                memoryRows.add(MultiGauge.Row.of(tags, sampleBytes * keys));
+            }
+        } catch (Exception e) {
+            log.warn("Error measuring coupon state usage: {}", e.getMessage());
+            return;
+        }
+        stateKeys.register(keyRows, true);
+        stateMemory.register(memoryRows, true);
+    }
+
+    // 종료 전 남은 상태 저장
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
 
-            if (couponJson == null) {
-                return null;
+    private void enqueue(Long couponId, PendingState state) {
+        if (pendingStates.size() >= queueCapacity && !pendingStates.containsKey(couponId)) {
+            droppedCounter.increment();
+            log.warn("쿠폰 상태 저장 대기열 초과, 변경을 버림: couponId={}", couponId);
+            return;
+        }
+        // 같은 버전(DB 에서 다시 읽은 상태)은 나중 것으로 교체
+        pendingStates.merge(couponId, state, (current, next) -> next.version() >= current.version() ? next : current);
+    }
+
+    private boolean flushBatch() {
+        Map<Long, PendingState> batch = new HashMap<>();
+        for (Map.Entry<Long, PendingState> entry : pendingStates.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= batchSize) {
+                break;
             }
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
 
-            return objectMapper.readValue(couponJson, CouponDto.Response.class);
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        try {
+            // 응답을 받지 않으므로 키 하나의 명령 오류가 배치 전체를 실패시키지 않음 (연결 오류만 다시 저장)
+            RBatch rBatch = redissonClient.createBatch(BatchOptions.defaults().skipResult());
+            for (Map.Entry<Long, PendingState> entry : batch.entrySet()) {
+                addToBatch(rBatch, entry.getKey(), entry.getValue(), now);
+            }
+            rBatch.execute();
         } catch (Exception e) {
-            log.error("Error getting coupon state: {}", e.getMessage(), e);
-            throw new RuntimeException("쿠폰 상태 조회 중 오류가 발생했습니다.", e);
+            log.error("Error flushing coupon states: count={}, error={}", batch.size(), e.getMessage());
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
+
+        // 저장하는 동안 새 상태가 들어온 쿠폰은 남겨 두고 다음 배치에서 저장
+        batch.forEach(pendingStates::remove);
+        return true;
+    }
+
+    private void addToBatch(RBatch rBatch, Long couponId, PendingState state, long now) throws IOException {
+        String stateKey = COUPON_STATE_KEY + couponId;
+        long ttlMillis = ttlMillis(state.response().getValidUntil(), now);
+        if (ttlMillis <= 0) {
+            rBatch.getBucket(stateKey).deleteAsync();       // 이미 보관 기간이 지난 쿠폰은 DB 에서만 조회
+            return;
+        }
+        rBatch.getScript(ByteArrayCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, WRITE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(stateKey), ascii(state.version()), encode(state.response()), ascii(ttlMillis));
+
+        // 같은 정책의 상태 키는 만료 시각이 같으므로 카운터도 같은 TTL 로 갱신
+        String countKey = COUPON_STATE_COUNT_KEY + state.policyId();
+        rBatch.<Long>getHyperLogLog(countKey, LongCodec.INSTANCE).addAsync(couponId);
+        rBatch.getHyperLogLog(countKey, LongCodec.INSTANCE).expireAsync(Duration.ofMillis(ttlMillis));
+        sampleCoupons.put(state.policyId(), couponId);
+    }
+
+    // 스크립트 인자는 바이트 그대로 전달하므로 상태는 상태 코덱으로 미리 인코딩
+    private byte[] encode(CouponDto.Response response) throws IOException {
+        ByteBuf buf = couponRedisCodecs.getCouponStateCodec().getValueEncoder().encode(response);
+        try {
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static byte[] ascii(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // 정책 종료 시각 + grace 까지 남은 시간 (종료 시각이 없으면 grace 만큼)
+    private long ttlMillis(LocalDateTime validUntil, long now) {
+        long graceMillis = TimeUnit.SECONDS.toMillis(graceSeconds);
+        if (validUntil == null) {
+            return graceMillis;
+        }
+        return validUntil.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + graceMillis - now;
+    }
+
+    private record PendingState(long version, Long policyId, CouponDto.Response response) {
     }
-}
\ No newline at end of file
+}
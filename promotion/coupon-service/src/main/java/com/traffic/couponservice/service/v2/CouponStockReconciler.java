@@ -0,0 +1,262 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
+import com.traffic.couponservice.repository.CouponPolicyRepository;
+import com.traffic.couponservice.repository.CouponRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Redis 쿠폰 수량(coupon:quantity:{policyId})과 DB 발급 수량 대사
+ * 정책별 발급 수량을 Redis 해시(coupon:reconcile:issued)에 누적하고, 어디까지 셌는지 쿠폰 ID 기준 high-water mark(coupon:reconcile:hwm)로 기록
+ * Snowflake ID 는 생성 시각순이므로 매 주기 hwm 이후의 PK 범위만 GROUP BY 로 세고, 전체 테이블 COUNT 는 하지 않음
+ * - hwm 은 현재 - safety-lag 까지만 올림 (ID 를 먼저 만들고 늦게 커밋된 쿠폰을 놓치지 않도록)
+ * - hwm 이후 쿠폰은 매번 발급 기간 중인 정책만 따로 세서 더함 (누적하지 않음)
+ * - hwm 이 현재 - safety-lag - window 보다 뒤처져 있으면(최초 실행, 장애 후 따라잡는 중) 비교를 건너뜀
+ * 발급 기간 중인 정책만 비교하며, drift = Redis 수량 - (총 수량 - 발급 수량)
+ * - drift > 0 : Redis 가 실제보다 많이 남았다고 봄 (초과 발급 위험)
+ * - drift < 0 : 수량 유실, v3 Kafka 처리 대기, lease 모드 노드별 임대분
+ * alert-threshold 이상이면 경고하고, 복구를 켜면 두 주기 연속 같은 drift 이고 max-adjustment 이내일 때만 CAS 로 수정
+ * 올려서 복구한 수량은 coupon:reconcile:restored:{policyId} 에 기록하여, 같은 발급 실패를 나중에 DLT 보상(CouponIssueCompensator)이 다시 복구하지 않도록 함
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponStockReconciler {
+    private static final String COUPON_QUANTITY_KEY = "coupon:quantity:";
+    private static final String ISSUED_COUNT_KEY = "coupon:reconcile:issued";
+    private static final String HIGH_WATER_MARK_KEY = "coupon:reconcile:hwm";
+    private static final String ISSUE_MODE_LEASE = "lease";
+    public static final String RESTORED_CREDIT_KEY = "coupon:reconcile:restored:";
+
+    // hwm 이 ARGV[1] 일 때만 정책별 수량(ARGV[3..] = policyId, count 쌍)을 더하고 hwm 을 ARGV[2] 로 올림
+    // 여러 노드가 같은 구간을 동시에 세더라도 한 번만 반영됨
+    private static final String ADVANCE_SCRIPT = """
+            local hwm = redis.call('GET', KEYS[2]) or '0'
+            if hwm ~= ARGV[1] then
+                return 0
+            end
+            for i = 3, #ARGV, 2 do
+                redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('SET', KEYS[2], ARGV[2])
+            return 1
+            """;
+
+    // 수량이 ARGV[1] 일 때만 ARGV[2] 로 수정하고, 올린 만큼(ARGV[3])을 보상 대상 수량으로 기록
+    private static final String REPAIR_SCRIPT = """
+            if tonumber(redis.call('GET', KEYS[1]) or '0') ~= tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2])
+            if tonumber(ARGV[3]) > 0 then
+                redis.call('INCRBY', KEYS[2], ARGV[3])
+                redis.call('EXPIRE', KEYS[2], ARGV[4])
+            end
+            return 1
+            """;
+
+    private final CouponPolicyRepository couponPolicyRepository;
+    private final CouponRepository couponRepository;
+    private final RedissonClient redissonClient;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final MeterRegistry meterRegistry;
+
+    // 이전 주기의 정책별 drift, 일시적인 차이(처리 대기 중인 발급)는 복구하지 않기 위해 비교
+    private final ConcurrentMap<Long, Long> previousDrifts = new ConcurrentHashMap<>();
+
+    private MultiGauge driftGauge;
+    private Timer reconcileTimer;
+
+    @Value("${coupon.issue.mode:lock}")
+    private String issueMode;
+
+    // 아직 커밋되지 않았을 수 있는 최근 쿠폰은 누적하지 않음
+    @Value("${coupon.reconcile.safety-lag-seconds:60}")
+    private long safetyLagSeconds;
+
+    // 한 번에 셀 ID 범위 (생성 시각 기준), 최초 실행처럼 밀린 구간이 길면 주기마다 나눠서 셈
+    @Value("${coupon.reconcile.window-minutes:60}")
+    private long windowMinutes;
+
+    @Value("${coupon.reconcile.max-windows-per-run:24}")
+    private int maxWindowsPerRun;
+
+    @Value("${coupon.reconcile.alert-threshold:10}")
+    private long alertThreshold;
+
+    @Value("${coupon.reconcile.repair.enabled:false}")
+    private boolean repairEnabled;
+
+    // 자동 복구할 최대 차이, 더 크면 경고만 하고 수동으로 확인
+    @Value("${coupon.reconcile.repair.max-adjustment:100}")
+    private long maxAdjustment;
+
+    // 올려서 복구한 수량 기록 보관 시간, DLT 보상이 도착할 수 있는 기간과 같게 설정
+    @Value("${coupon.kafka.retry.compensated-ttl-seconds:86400}")
+    private long restoredCreditTtlSeconds;
+
+    @PostConstruct
+    void init() {
+        driftGauge = MultiGauge.builder("coupon.stock.drift")
+                .description("Redis 수량 - DB 기준 남은 수량")
+                .register(meterRegistry);
+        reconcileTimer = Timer.builder("coupon.stock.reconcile")
+                .description("쿠폰 수량 대사 시간")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.reconcile.interval-ms:60000}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        try {
+            advanceHighWaterMark();
+            compareActivePolicies();
+        } catch (Exception e) {
+            log.error("쿠폰 수량 대사 실패: {}", e.getMessage(), e);
+        } finally {
+            reconcileTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // hwm 이후 ~ 현재 - safety-lag 구간을 window 단위로 세서 누적
+    void advanceHighWaterMark() {
+        long safeUpper = SnowflakeIdGenerator.firstIdAt(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(safetyLagSeconds)) - 1;
+        long windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+
+        for (int window = 0; window < maxWindowsPerRun; window++) {
+            long hwm = highWaterMark();
+            if (hwm >= safeUpper) {
+                return;
+            }
+            // 쿠폰이 없는 기간은 건너뛰고 다음 쿠폰이 생성된 시각부터 window 만큼
+            Long next = couponRepository.findMinIdGreaterThan(hwm);
+            long to = next == null || next > safeUpper
+                    ? safeUpper
+                    : Math.min(safeUpper, SnowflakeIdGenerator.firstIdAt(SnowflakeIdGenerator.extractTimestamp(next) + windowMillis) - 1);
+
+            List<Object> args = new ArrayList<>();
+            args.add(String.valueOf(hwm));
+            args.add(String.valueOf(to));
+            for (Object[] row : couponRepository.countGroupByCouponPolicyIdInIdRange(hwm, to)) {
+                args.add(String.valueOf(row[0]));
+                args.add(String.valueOf(row[1]));
+            }
+            Long advanced = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, ADVANCE_SCRIPT,
+                    RScript.ReturnType.INTEGER, List.of(ISSUED_COUNT_KEY, HIGH_WATER_MARK_KEY), args.toArray());
+            if (advanced == null || advanced == 0) {
+                return;     // 다른 노드가 먼저 반영함, 다음 주기에 이어서 셈
+            }
+        }
+    }
+
+    // 발급 기간 중인 정책의 Redis 수량과 DB 기준 남은 수량 비교
+    void compareActivePolicies() {
+        LocalDateTime now = LocalDateTime.now();
+        List<CouponPolicy> policies = couponPolicyRepository.findIssuablePolicies(now, now);
+        if (policies.isEmpty()) {
+            driftGauge.register(List.of(), true);
+            previousDrifts.clear();
+            return;
+        }
+
+        // 따라잡는 중에는 hwm 이후 구간이 길어 매번 세는 비용이 크고, 누적도 덜 끝나 drift 가 의미 없음
+        long hwm = highWaterMark();
+        long caughtUpFrom = SnowflakeIdGenerator.firstIdAt(System.currentTimeMillis()
+                - TimeUnit.SECONDS.toMillis(safetyLagSeconds) - TimeUnit.MINUTES.toMillis(windowMinutes)) - 1;
+        if (hwm < caughtUpFrom) {
+            log.info("쿠폰 수량 대사 누적 중이라 비교를 건너뜀: hwm={}", hwm);
+            driftGauge.register(List.of(), true);
+            previousDrifts.clear();
+            return;
+        }
+
+        List<Long> policyIds = policies.stream().map(CouponPolicy::getId).toList();
+        Map<String, String> accumulated = redissonClient.<String, String>getMap(ISSUED_COUNT_KEY, StringCodec.INSTANCE)
+                .getAll(policyIds.stream().map(String::valueOf).collect(Collectors.toSet()));
+        Map<Long, Long> recent = new HashMap<>();
+        for (Object[] row : couponRepository.countGroupByCouponPolicyIdInAndIdGreaterThan(policyIds, hwm)) {
+            recent.put((Long) row[0], (Long) row[1]);
+        }
+
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        Map<Long, Long> drifts = new HashMap<>();
+        for (CouponPolicy policy : policies) {
+            RAtomicLong quantity = redissonClient.getAtomicLong(COUPON_QUANTITY_KEY + policy.getId());
+            if (!quantity.isExists()) {
+                continue;   // 수량 키가 없으면 CouponPolicyWarmer 가 복구
+            }
+            long issued = Long.parseLong(accumulated.getOrDefault(String.valueOf(policy.getId()), "0"))
+                    + recent.getOrDefault(policy.getId(), 0L);
+            long expected = Math.max(0, policy.getTotalQuantity() - issued);
+            long actual = quantity.get();
+            long drift = actual - expected;
+
+            rows.add(MultiGauge.Row.of(Tags.of("policyId", String.valueOf(policy.getId())), drift));
+            drifts.put(policy.getId(), drift);
+            if (drift != 0 && Math.abs(drift) >= alertThreshold) {
+                log.warn("쿠폰 수량 불일치: policyId={}, redis={}, expected={}, drift={}", policy.getId(), actual, expected, drift);
+                Counter.builder("coupon.stock.drift.alert").register(meterRegistry).increment();
+                repair(policy.getId(), actual, expected, drift);
+            }
+        }
+        driftGauge.register(rows, true);
+        previousDrifts.clear();
+        previousDrifts.putAll(drifts);
+    }
+
+    private void repair(Long policyId, long actual, long expected, long drift) {
+        if (!repairEnabled || Math.abs(drift) > maxAdjustment || !Long.valueOf(drift).equals(previousDrifts.get(policyId))) {
+            return;
+        }
+        if (drift < 0 && ISSUE_MODE_LEASE.equals(issueMode)) {
+            return;     // 노드별 임대 수량만큼 Redis 가 적은 것은 정상
+        }
+        // 비교하는 동안 발급이 일어났으면 수정하지 않고 다음 주기에 다시 비교
+        Long repaired = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, REPAIR_SCRIPT,
+                RScript.ReturnType.INTEGER, List.of(COUPON_QUANTITY_KEY + policyId, RESTORED_CREDIT_KEY + policyId),
+                String.valueOf(actual), String.valueOf(expected), String.valueOf(Math.max(0, -drift)), String.valueOf(restoredCreditTtlSeconds));
+        if (repaired == null || repaired == 0) {
+            return;
+        }
+        log.warn("쿠폰 수량 복구: policyId={}, {} -> {}", policyId, actual, expected);
+        Counter.builder("coupon.stock.repair")
+                .tag("direction", drift > 0 ? "down" : "up")
+                .register(meterRegistry)
+                .increment();
+        if (expected > 0) {
+            couponSoldOutRegistry.markAvailable(policyId);
+        } else {
+            couponSoldOutRegistry.markSoldOut(policyId);
+        }
+    }
+
+    private long highWaterMark() {
+        String hwm = redissonClient.<String>getBucket(HIGH_WATER_MARK_KEY, StringCodec.INSTANCE).get();
+        return hwm == null ? 0 : Long.parseLong(hwm);
+    }
+}
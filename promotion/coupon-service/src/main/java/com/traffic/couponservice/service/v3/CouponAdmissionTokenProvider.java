@@ -0,0 +1,96 @@
+package com.traffic.couponservice.service.v3;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * 대기열 입장 토큰 발급/검증
+ * 토큰 = {policyId}.{userId}.{만료시각(epoch millis)}.{HMAC-SHA256 서명}
+ * 서명만 확인하면 되므로 발급 API 에서 Redis 조회 없이 로컬에서 검증 가능
+ * 대기열을 사용할 때만 생성되므로 서명 키도 그때만 필요함
+ */
+@Component
+@ConditionalOnProperty(name = "coupon.waiting-room.enabled", havingValue = "true")
+public class CouponAdmissionTokenProvider {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char SEPARATOR = '.';
+    private static final int MIN_SECRET_BYTES = 32;     // HMAC-SHA256 출력 길이 이상
+
+    private final SecretKeySpec secretKey;
+    // Mac 은 스레드 안전하지 않으므로 키로 초기화된 원본을 복제해서 사용
+    // (가상 스레드는 요청마다 새로 만들어지므로 ThreadLocal 캐시는 재사용되지 않고 스레드 수만큼 Mac 만 늘어남)
+    private final Mac prototype;
+
+    public CouponAdmissionTokenProvider(@Value("${coupon.waiting-room.token-secret}") String secret) {
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (secret.isBlank() || key.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("입장 토큰 서명 키(coupon.waiting-room.token-secret)는 " + MIN_SECRET_BYTES + "바이트 이상이어야 합니다.");
+        }
+        this.secretKey = new SecretKeySpec(key, ALGORITHM);
+        this.prototype = newMac();
+    }
+
+    public String issue(Long policyId, Long userId, long expiresAtMillis) {
+        String payload = String.valueOf(policyId) + SEPARATOR + userId + SEPARATOR + expiresAtMillis;
+        return payload + SEPARATOR + sign(payload);
+    }
+
+    // 서명, 정책, 사용자, 만료 시각을 모두 확인
+    public boolean verify(String token, Long policyId, Long userId) {
+        if (token == null) {
+            return false;
+        }
+        int signatureStart = token.lastIndexOf(SEPARATOR);
+        if (signatureStart < 0) {
+            return false;
+        }
+        String payload = token.substring(0, signatureStart);
+        byte[] signature = token.substring(signatureStart + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(signature, sign(payload).getBytes(StandardCharsets.US_ASCII))) {
+            return false;
+        }
+
+        String[] fields = payload.split("\\.");
+        if (fields.length != 3) {
+            return false;
+        }
+        try {
+            return fields[0].equals(String.valueOf(policyId))
+                    && fields[1].equals(String.valueOf(userId))
+                    && Long.parseLong(fields[2]) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private String sign(String payload) {
+        byte[] signature = mac().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    private Mac mac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            return newMac();    // 복제를 지원하지 않는 provider
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("입장 토큰 서명 키를 초기화할 수 없습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// 한 번의 poll()로 가져온 메시지를 묶어서 하나의 트랜잭션 + JDBC 배치로 저장
+// 리스너가 정상 종료(= 트랜잭션 커밋)된 뒤에 컨테이너가 오프셋을 커밋함 (AckMode.BATCH)
+// 배치 저장에 실패하면 한 건씩 다시 저장하여 실패한 메시지를 찾고, 그 위치를 BatchListenerFailedException 으로 알려
+// 에러 핸들러가 앞쪽 메시지까지 커밋하고 실패한 메시지부터 다시 처리하도록 함 (이미 저장된 메시지는 발급 멱등 키(issue_key)로 건너뜀)
+// 재시도를 모두 실패한 메시지만 에러 핸들러가 coupon-issue-requests-dlt 로 보내고, 이미 차감한 수량은 CouponDeadLetterConsumer 가 복구
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "coupon.kafka.consumer.mode", havingValue = "batch")
+public class CouponBatchConsumer {
+    private final CouponService couponService;
+    private final CouponIssueTicketService couponIssueTicketService;
+    private final CouponIssueIdempotencyService couponIssueIdempotencyService;
+
+    @KafkaListener(id = CouponConsumerConcurrencyScaler.LISTENER_ID, topics = "coupon-issue-requests", groupId = "coupon-service", containerFactory = "couponKafkaListenerContainerFactory")
+    public void consumeCouponIssueRequests(List<CouponDto.IssueMessage> messages){
+        log.info("쿠폰 배치 발급 : {}건", messages.size());
+        // 재전송 등으로 이미 처리된 메시지 제외 (티켓 상태 파이프라인 조회 한 번)
+        List<CouponDto.IssueMessage> pending = couponIssueIdempotencyService.excludeAlreadyIssued(messages);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Coupon> couponsByTicketId;
+        try {
+            couponsByTicketId = issueBatch(pending);
+        } catch (RuntimeException e) {
+            log.warn("쿠폰 배치 저장 실패, 한 건씩 다시 저장 : {}", e.getMessage());
+            issueOneByOne(messages, pending);
+            return;
+        }
+
+        // 트랜잭션 커밋 이후 티켓 상태를 한 번에 갱신
+        couponIssueTicketService.markIssued(couponsByTicketId);
+    }
+
+    // 하나의 트랜잭션 + JDBC 배치로 저장
+    private Map<String, Coupon> issueBatch(List<CouponDto.IssueMessage> pending) {
+        Map<String, Coupon> couponsByTicketId = new HashMap<>();
+        try {
+            putAll(couponsByTicketId, pending, couponService.issueCoupons(pending));
+        } catch (DataIntegrityViolationException e) {
+            // 배치 일부가 이미 저장되어 있음 (티켓 기록 전 장애, 동시 처리) -> 저장된 건을 제외하고 한 번 더 저장
+            Map<String, Coupon> issued = couponIssueIdempotencyService.findIssuedCoupons(pending);
+            if (issued.isEmpty()) {
+                throw e;
+            }
+            couponsByTicketId.putAll(issued);
+
+            List<CouponDto.IssueMessage> remaining = pending.stream()
+                    .filter(message -> message.getTicketId() == null || !issued.containsKey(message.getTicketId()))
+                    .toList();
+            if (!remaining.isEmpty()) {
+                putAll(couponsByTicketId, remaining, couponService.issueCoupons(remaining));
+            }
+        }
+        return couponsByTicketId;
+    }
+
+    // 배치 순서대로 한 건씩 저장, 실패하면 그 메시지의 배치 내 위치를 알려 이후 메시지는 다시 처리되도록 함
+    private void issueOneByOne(List<CouponDto.IssueMessage> messages, List<CouponDto.IssueMessage> pending) {
+        Set<CouponDto.IssueMessage> pendingSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        pendingSet.addAll(pending);
+        for (int index = 0; index < messages.size(); index++) {
+            CouponDto.IssueMessage message = messages.get(index);
+            if (!pendingSet.contains(message)) {
+                continue;
+            }
+            try {
+                issue(message);
+            } catch (Exception e) {
+                log.error("쿠폰 발급 실패 : ticketId={}, error={}", message.getTicketId(), e.getMessage());
+                throw new BatchListenerFailedException("쿠폰 배치 발급 실패", e, index);
+            }
+        }
+    }
+
+    private void issue(CouponDto.IssueMessage message) {
+        try {
+            Coupon coupon = couponService.issueCoupon(message);
+            couponIssueTicketService.markIssued(message.getTicketId(), coupon);      // 트랜잭션 커밋 이후 기록
+        } catch (DataIntegrityViolationException e) {
+            // 같은 멱등 키로 이미 저장된 경우 (티켓 기록 전 장애, 동시 처리)
+            Optional<Coupon> issued = couponIssueIdempotencyService.findIssuedCoupon(message);
+            if (issued.isEmpty()) {
+                throw e;
+            }
+            couponIssueTicketService.markIssued(message.getTicketId(), issued.get());
+        }
+    }
+
+    private void putAll(Map<String, Coupon> couponsByTicketId, List<CouponDto.IssueMessage> messages, List<Coupon> coupons) {
+        for (int i = 0; i < messages.size(); i++) {
+            couponsByTicketId.put(messages.get(i).getTicketId(), coupons.get(i));
+        }
+    }
+}
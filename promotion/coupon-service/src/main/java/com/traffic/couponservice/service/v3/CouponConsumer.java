@@ -1,24 +1,91 @@
 package com.traffic.couponservice.service.v3;
 
+import com.traffic.couponservice.domain.Coupon;
 import com.traffic.couponservice.dto.v3.CouponDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
+// 저장에 실패한 메시지는 coupon-issue-requests-retry-{n} 토픽에서 지연 후 다시 처리 (메인 토픽의 다음 메시지는 막지 않음)
+// 재시도를 모두 실패하면 coupon-issue-requests-dlt 로 보내고, 이미 차감한 수량은 CouponIssueCompensator 가 복구
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "coupon.kafka.consumer.mode", havingValue = "record", matchIfMissing = true)
 public class CouponConsumer {
-    private final CouponService couponService;;
+    private static final String RETRY_TOPIC_SUFFIX = "-retry-";
+
+    private final CouponService couponService;
+    private final CouponIssueTicketService couponIssueTicketService;
+    private final CouponIssueIdempotencyService couponIssueIdempotencyService;
+    private final CouponIssueCompensator couponIssueCompensator;
+    private final MeterRegistry meterRegistry;
 
-    @KafkaListener(topics = "coupon-issue-requests", groupId = "coupon-service", containerFactory = "couponKafkaListenerContainerFactory")
-    public void consumeCouponIssueRequest(CouponDto.IssueMessage message){
+    @RetryableTopic(
+            attempts = "${coupon.kafka.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${coupon.kafka.retry.delay-ms:1000}",
+                    multiplierExpression = "${coupon.kafka.retry.multiplier:2.0}",
+                    maxDelayExpression = "${coupon.kafka.retry.max-delay-ms:10000}"),
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            numPartitions = "3",
+            kafkaTemplate = "couponKafkaTemplate",
+            exclude = IllegalArgumentException.class)        // 정책 없음 등 재시도해도 성공할 수 없는 오류는 바로 DLT 로
+    @KafkaListener(id = CouponConsumerConcurrencyScaler.LISTENER_ID, topics = "coupon-issue-requests", groupId = "coupon-service", containerFactory = "couponKafkaListenerContainerFactory")
+    public void consumeCouponIssueRequest(CouponDto.IssueMessage message, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic){
+        log.info("쿠폰 발급 : {}", message);
+        recordRetry(topic);
+        if (couponIssueIdempotencyService.isAlreadyIssued(message)) {
+            return;     // 재전송된 메시지
+        }
         try{
-            log.info("쿠폰 발급 : {}", message);
-            couponService.issueCoupon(message);
+            Coupon coupon = couponService.issueCoupon(message);
+            couponIssueTicketService.markIssued(message.getTicketId(), coupon);      // 트랜잭션 커밋 이후 기록
+        }catch (DataIntegrityViolationException e){
+            // 같은 멱등 키로 이미 저장된 경우 (티켓 기록 전 장애, 동시 처리)
+            Optional<Coupon> issued = couponIssueIdempotencyService.findIssuedCoupon(message);
+            if (issued.isEmpty()) {
+                throw e;    // 쿠폰 코드 충돌 등, 재시도 토픽에서 다시 처리
+            }
+            couponIssueTicketService.markIssued(message.getTicketId(), issued.get());
         }catch (Exception e){
-            log.error("쿠폰 발급 실패 : {}", e.getMessage());
+            log.error("쿠폰 발급 실패, 재시도 예정 : topic={}, error={}", topic, e.getMessage());
+            throw e;
+        }
+    }
+
+    @DltHandler
+    public void handleDeadLetter(CouponDto.IssueMessage message){
+        log.error("쿠폰 발급 재시도 모두 실패 : {}", message);
+        Counter.builder("coupon.issue.dead-letter")
+                .register(meterRegistry)
+                .increment();
+        couponIssueCompensator.compensate(message, "쿠폰 발급 처리에 실패했습니다. 다시 시도해주세요");
+    }
+
+    // 재시도 토픽에서 받은 메시지면 몇 번째 재시도인지 기록 (coupon-issue-requests-retry-0 = 1번째)
+    private void recordRetry(String topic) {
+        int suffix = topic.lastIndexOf(RETRY_TOPIC_SUFFIX);
+        if (suffix < 0) {
+            return;
         }
+        int depth = Integer.parseInt(topic.substring(suffix + RETRY_TOPIC_SUFFIX.length())) + 1;
+        Counter.builder("coupon.issue.retry")
+                .tag("depth", String.valueOf(depth))
+                .register(meterRegistry)
+                .increment();
     }
 }
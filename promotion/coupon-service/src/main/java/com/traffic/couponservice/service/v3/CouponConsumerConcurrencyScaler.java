@@ -0,0 +1,259 @@
+package com.traffic.couponservice.service.v3;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 쿠폰 발급 리스너 컨슈머 랙 측정 및 동시성 조절
+ * 주기적으로 AdminClient 로 파티션별 최신 오프셋과 coupon-service 그룹의 커밋 오프셋을 조회해 랙을 게이지로 노출하고,
+ * 랙과 파티션은 그룹 전체 값이므로 그룹에 참여한 노드(컨슈머 host) 수로 나눠 이 노드의 몫만 맡음
+ * - 동시성 = 노드당 랙 / 컨슈머 1개가 감당할 랙(lag-per-consumer), min ~ min(max, ceil(파티션 수 / 노드 수))
+ * 동시성 변경은 컨테이너를 재시작(리밸런싱)해야 적용되므로, 늘릴 때는 노드마다 임의 지연(scale-up-jitter) 후 적용하여
+ * 모든 노드가 같은 주기에 재시작하지 않도록 하고, 줄일 때는 cooldown 동안 랙이 낮게 유지된 경우에만 적용
+ * 재시작은 정지 완료 콜백에서 바로 이어서 하며, 재시작에 실패하면 다음 주기에 다시 시작
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponConsumerConcurrencyScaler {
+    public static final String LISTENER_ID = "couponIssueListener";
+    private static final String TOPIC = "coupon-issue-requests";
+    private static final String GROUP_ID = "coupon-service";
+    private static final long ADMIN_TIMEOUT_SECONDS = 5;
+
+    private final KafkaAdmin kafkaAdmin;
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<Integer, AtomicLong> partitionLags = new ConcurrentHashMap<>();
+    private final AtomicLong totalLag = new AtomicLong();
+    private final AtomicInteger currentConcurrency = new AtomicInteger();
+
+    private AdminClient adminClient;
+    private volatile Integer pendingConcurrency;     // 컨테이너 정지 후 적용할 동시성 (재시작 전까지 다른 조절을 하지 않음)
+    private volatile long lowLagSince;                // 랙이 현재 동시성보다 낮은 수준으로 유지되기 시작한 시각
+    private volatile long scaleUpAt;                  // 동시성을 늘릴 시각 (임의 지연 적용, 0 이면 예정 없음)
+    private volatile int nodeCount = 1;               // 마지막으로 확인한 그룹 참여 노드 수
+
+    @Value("${coupon.kafka.consumer.concurrency.min:1}")
+    private int minConcurrency;
+
+    @Value("${coupon.kafka.consumer.concurrency.max:3}")
+    private int maxConcurrency;
+
+    // 동시성 자동 조절 사용 여부 (사용하지 않아도 랙 게이지는 노출)
+    @Value("${coupon.kafka.consumer.autoscale.enabled:true}")
+    private boolean autoscaleEnabled;
+
+    // 컨슈머 1개가 감당할 랙, 전체 랙 / lag-per-consumer 만큼 컨슈머를 둠
+    @Value("${coupon.kafka.consumer.autoscale.lag-per-consumer:1000}")
+    private long lagPerConsumer;
+
+    // 동시성을 줄이기 전에 랙이 낮게 유지되어야 하는 시간
+    @Value("${coupon.kafka.consumer.autoscale.scale-down-cooldown-ms:60000}")
+    private long scaleDownCooldownMs;
+
+    // 동시성을 늘리기 전 임의 지연의 최대값, 노드마다 다른 주기에 재시작하도록 측정 주기보다 길게 설정
+    @Value("${coupon.kafka.consumer.autoscale.scale-up-jitter-ms:20000}")
+    private long scaleUpJitterMs;
+
+    @PostConstruct
+    void init() {
+        adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        Gauge.builder("coupon.kafka.consumer.lag.total", totalLag, AtomicLong::get)
+                .tag("topic", TOPIC)
+                .register(meterRegistry);
+        Gauge.builder("coupon.kafka.consumer.concurrency", currentConcurrency, AtomicInteger::get)
+                .tag("listener", LISTENER_ID)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        adminClient.close();
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.kafka.consumer.autoscale.interval-ms:10000}")
+    public void adjust() {
+        ConcurrentMessageListenerContainer<?, ?> container = container();
+        if (container == null) {
+            return;     // 리스너가 아직 등록되지 않음
+        }
+        if (applyPendingConcurrency(container)) {
+            return;
+        }
+        currentConcurrency.set(container.getConcurrency());
+
+        int partitionCount;
+        try {
+            partitionCount = measureLag();
+        } catch (Exception e) {
+            log.warn("컨슈머 랙 조회 실패: {}", e.getMessage());
+            return;
+        }
+        if (!autoscaleEnabled || !container.isRunning()) {
+            return;
+        }
+
+        int current = container.getConcurrency();
+        int target = nodeConcurrency(totalLag.get(), lagPerConsumer, nodeCount, partitionCount, minConcurrency, maxConcurrency);
+        long now = System.currentTimeMillis();
+        if (target > current) {
+            lowLagSince = 0;
+            if (scaleUpAt == 0) {
+                scaleUpAt = now + ThreadLocalRandom.current().nextLong(scaleUpJitterMs + 1);
+            }
+            if (now >= scaleUpAt) {
+                scaleUpAt = 0;
+                scale(container, current, target);
+            }
+            return;
+        }
+        scaleUpAt = 0;
+        if (target == current) {
+            lowLagSince = 0;
+            return;
+        }
+
+        // 일시적으로 랙이 줄어든 경우 컨테이너 재시작(리밸런싱)이 반복되지 않도록 cooldown 이후에 축소
+        if (lowLagSince == 0) {
+            lowLagSince = now;
+        } else if (now - lowLagSince >= scaleDownCooldownMs) {
+            lowLagSince = 0;
+            scale(container, current, target);
+        }
+    }
+
+    // 전체 랙을 감당하는 데 필요한 컨슈머 수 (파티션보다 많은 컨슈머는 할당받을 파티션이 없으므로 upper 로 제한)
+    static int desiredConcurrency(long totalLag, long lagPerConsumer, int lower, int upper) {
+        int needed = (int) Math.min(Integer.MAX_VALUE, (totalLag + lagPerConsumer - 1) / lagPerConsumer);
+        return Math.max(lower, Math.min(upper, Math.max(needed, 1)));
+    }
+
+    // 그룹 전체 랙과 파티션을 노드 수로 나눈 이 노드의 동시성
+    static int nodeConcurrency(long totalLag, long lagPerConsumer, int nodes, int partitions, int lower, int upper) {
+        int share = Math.max(nodes, 1);
+        long nodeLag = (totalLag + share - 1) / share;
+        int nodePartitions = (partitions + share - 1) / share;
+        return desiredConcurrency(nodeLag, lagPerConsumer, lower, Math.min(upper, nodePartitions));
+    }
+
+    // 그룹에 참여한 노드 수 (노드마다 컨슈머 스레드가 여러 개이므로 host 기준), 참여한 컨슈머가 없으면 이 노드만 있는 것으로 봄
+    static int nodeCount(Collection<MemberDescription> members) {
+        return (int) Math.max(1, members.stream().map(MemberDescription::host).distinct().count());
+    }
+
+    // 파티션별 랙과 그룹 참여 노드 수 갱신 후 파티션 수 반환
+    private int measureLag() throws Exception {
+        int partitionCount = adminClient.describeTopics(List.of(TOPIC)).allTopicNames()
+                .get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .get(TOPIC).partitions().size();
+
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            latest.put(new TopicPartition(TOPIC, partition), OffsetSpec.latest());
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = adminClient.listOffsets(latest).all()
+                .get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Map<TopicPartition, OffsetAndMetadata> committed = adminClient.listConsumerGroupOffsets(GROUP_ID)
+                .partitionsToOffsetAndMetadata()
+                .get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        long total = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> entry : endOffsets.entrySet()) {
+            OffsetAndMetadata offset = committed.get(entry.getKey());
+            // 커밋 기록이 없는 파티션은 auto.offset.reset=earliest 로 처음부터 읽으므로 최신 오프셋 전체가 랙
+            long lag = Math.max(0, entry.getValue().offset() - (offset != null ? offset.offset() : 0));
+            partitionLag(entry.getKey().partition()).set(lag);
+            total += lag;
+        }
+        totalLag.set(total);
+        nodeCount = nodeCount(adminClient.describeConsumerGroups(List.of(GROUP_ID)).describedGroups().get(GROUP_ID)
+                .get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .members());
+        return partitionCount;
+    }
+
+    private AtomicLong partitionLag(int partition) {
+        return partitionLags.computeIfAbsent(partition, p -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("coupon.kafka.consumer.lag", lag, AtomicLong::get)
+                    .tag("topic", TOPIC)
+                    .tag("partition", String.valueOf(p))
+                    .register(meterRegistry);
+            return lag;
+        });
+    }
+
+    // 정지 요청 후 처리 중인 레코드의 커밋까지 끝나면 바로 새 동시성으로 시작
+    void scale(ConcurrentMessageListenerContainer<?, ?> container, int current, int target) {
+        log.info("쿠폰 발급 리스너 동시성 변경: {} -> {} (lag={}, lagPerConsumer={}, nodes={})", current, target, totalLag.get(), lagPerConsumer, nodeCount);
+        Counter.builder("coupon.kafka.consumer.scaling")
+                .tag("direction", target > current ? "up" : "down")
+                .register(meterRegistry)
+                .increment();
+        pendingConcurrency = target;
+        // 스케줄러 스레드를 막지 않도록 비동기로 정지
+        // 정지 콜백은 마지막으로 종료된 컨슈머 스레드에서 실행되므로 재시작은 다른 스레드에서 수행
+        container.stop(() -> CompletableFuture.runAsync(() -> applyPendingConcurrency(container))
+                .exceptionally(e -> {
+                    log.error("쿠폰 발급 리스너 재시작 실패, 다음 주기에 다시 시작: concurrency={}", target, e);
+                    return null;
+                }));
+    }
+
+    // 정지 콜백과 스케줄러가 동시에 재시작하지 않도록 동기화
+    private synchronized boolean applyPendingConcurrency(ConcurrentMessageListenerContainer<?, ?> container) {
+        Integer target = pendingConcurrency;
+        if (target == null) {
+            return false;
+        }
+        if (container.isRunning() || container.isChildRunning()) {
+            return true;    // 아직 정지 중
+        }
+        container.setConcurrency(target);
+        container.start();
+        currentConcurrency.set(target);
+        pendingConcurrency = null;
+        log.info("쿠폰 발급 리스너 재시작: concurrency={}", target);
+        return true;
+    }
+
+    private ConcurrentMessageListenerContainer<?, ?> container() {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(LISTENER_ID);
+        if (container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) {
+            return concurrent;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.dto.v3.CouponDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// batch / parallel 모드의 DLT 처리 (record 모드는 CouponConsumer 의 @DltHandler 가 처리)
+// 에러 핸들러가 재시도를 모두 실패한 메시지를 coupon-issue-requests-dlt 로 보내면 차감했던 수량을 복구
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${coupon.kafka.consumer.mode:record}' != 'record'")
+public class CouponDeadLetterConsumer {
+    private final CouponIssueCompensator couponIssueCompensator;
+    private final MeterRegistry meterRegistry;
+
+    @KafkaListener(topics = "coupon-issue-requests-dlt", groupId = "coupon-service", containerFactory = "couponKafkaListenerContainerFactory")
+    public void consumeDeadLetters(List<CouponDto.IssueMessage> messages){
+        log.error("쿠폰 발급 재시도 모두 실패 : {}건", messages.size());
+        Counter.builder("coupon.issue.dead-letter")
+                .register(meterRegistry)
+                .increment(messages.size());
+        messages.forEach(message -> couponIssueCompensator.compensate(message, "쿠폰 발급 처리에 실패했습니다. 다시 시도해주세요"));
+    }
+}
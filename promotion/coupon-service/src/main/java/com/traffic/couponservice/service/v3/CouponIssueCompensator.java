@@ -0,0 +1,128 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import com.traffic.couponservice.repository.CouponRepository;
+import com.traffic.couponservice.service.v2.CouponDuplicateIssueGuard;
+import com.traffic.couponservice.service.v2.CouponSoldOutRegistry;
+import com.traffic.couponservice.service.v2.CouponStockReconciler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 최종 실패한 v3 발급 요청 보상 처리 (DLT 소비 시 호출)
+ * 발급 요청 시점에 이미 coupon:quantity 를 차감하고 coupon:issued 비트맵에 기록했으므로,
+ * 저장에 끝내 실패한 메시지는 수량을 되돌리고 중복 발급 기록을 지워 다시 발급받을 수 있게 함
+ * lease 모드의 임대 수량도 Redis 에서 빠져나간 수량이므로 같은 방식으로 coupon:quantity 에 반환
+ * DLT 메시지가 다시 전달되어도 수량이 두 번 복구되지 않도록 coupon:compensated:{ticketId} 로 한 번만 처리
+ * DLT 에 도착하기 전에 CouponStockReconciler 가 같은 수량을 이미 올렸다면(coupon:reconcile:restored:{policyId}) 그 기록을 하나 차감하고 수량은 올리지 않음
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponIssueCompensator {
+    private static final String COUPON_QUANTITY_KEY = "coupon:quantity:";
+    private static final String COMPENSATED_KEY = "coupon:compensated:";
+
+    // 스크립트 반환 코드
+    private static final long ALREADY_COMPENSATED = -1;
+    private static final long QUANTITY_NOT_FOUND = -2;
+    private static final long ALREADY_RESTORED = -3;
+
+    // 보상 기록(SET NX)에 성공한 경우에만 수량 복구 + 중복 발급 비트 해제, 복구 후 남은 수량 반환
+    // 대사가 먼저 올려둔 수량이 있으면 그 기록만 차감
+    private static final String COMPENSATE_SCRIPT = """
+            if not redis.call('SET', KEYS[1], '1', 'NX', 'EX', ARGV[2]) then
+                return -1
+            end
+            redis.call('SETBIT', KEYS[3], ARGV[1], 0)
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                return -2
+            end
+            if tonumber(redis.call('GET', KEYS[4]) or '0') > 0 then
+                redis.call('DECR', KEYS[4])
+                return -3
+            end
+            return redis.call('INCR', KEYS[2])
+            """;
+
+    private final RedissonClient redissonClient;
+    private final CouponRepository couponRepository;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final CouponIssueTicketService couponIssueTicketService;
+    private final MeterRegistry meterRegistry;
+
+    // 보상 기록 보관 시간, DLT 재전달 가능 기간보다 길게 설정
+    @Value("${coupon.kafka.retry.compensated-ttl-seconds:86400}")
+    private long compensatedTtlSeconds;
+
+    public void compensate(CouponDto.IssueMessage message, String reason) {
+        // 마지막 시도에서 저장은 커밋되었지만 티켓 기록 전에 실패한 경우 수량을 되돌리면 초과 발급이 됨
+        Optional<Coupon> issued = message.getTicketId() != null
+                ? couponRepository.findByIssueKey(message.getTicketId())
+                : Optional.empty();
+        if (issued.isPresent()) {
+            couponIssueTicketService.markIssued(message.getTicketId(), issued.get());
+            compensated("already-issued");
+            return;
+        }
+
+        Long remaining = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                COMPENSATE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(compensatedKey(message),
+                        COUPON_QUANTITY_KEY + message.getPolicyId(),
+                        CouponDuplicateIssueGuard.COUPON_ISSUED_KEY + message.getPolicyId(),
+                        CouponStockReconciler.RESTORED_CREDIT_KEY + message.getPolicyId()),
+                String.valueOf(message.getUserId()), String.valueOf(compensatedTtlSeconds));
+
+        if (remaining == ALREADY_COMPENSATED) {
+            compensated("duplicate");
+            return;
+        }
+        if (remaining == QUANTITY_NOT_FOUND) {
+            // 발급 기간이 끝나 수량 정보가 정리된 정책
+            log.warn("쿠폰 수량 정보가 없어 수량을 복구하지 않습니다: ticketId={}, policyId={}", message.getTicketId(), message.getPolicyId());
+        } else if (remaining == ALREADY_RESTORED) {
+            // 소진 해제도 대사가 수량을 올릴 때 처리함
+            log.info("쿠폰 수량 대사에서 이미 복구한 수량이라 다시 복구하지 않습니다: ticketId={}, policyId={}", message.getTicketId(), message.getPolicyId());
+        } else {
+            // 소진 처리된 정책이면 모든 노드에서 다시 발급 가능하도록 해제
+            couponSoldOutRegistry.markAvailable(message.getPolicyId());
+            Counter.builder("coupon.issue.stock.restored")
+                    .tag("policyId", String.valueOf(message.getPolicyId()))
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        couponIssueTicketService.markFailed(message.getTicketId(), reason);
+        compensated(remaining == QUANTITY_NOT_FOUND ? "quantity-not-found"
+                : remaining == ALREADY_RESTORED ? "restored-by-reconciler" : "restored");
+        log.warn("쿠폰 발급 최종 실패, 수량 복구: ticketId={}, policyId={}, userId={}, remaining={}",
+                message.getTicketId(), message.getPolicyId(), message.getUserId(), remaining);
+    }
+
+    // 티켓 도입 이전 메시지는 정책 + 사용자로 식별 (비트맵으로 정책당 1회만 발급되므로 유일)
+    private String compensatedKey(CouponDto.IssueMessage message) {
+        if (message.getTicketId() != null) {
+            return COMPENSATED_KEY + message.getTicketId();
+        }
+        return COMPENSATED_KEY + message.getPolicyId() + ":" + message.getUserId();
+    }
+
+    private void compensated(String result) {
+        Counter.builder("coupon.issue.compensated")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,109 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import com.traffic.couponservice.repository.CouponRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Kafka 발급 메시지 멱등 처리
+ * 프로듀서 재시도, 오프셋 커밋 전 장애, 리밸런싱 등으로 같은 IssueMessage 를 다시 받아도 쿠폰은 한 번만 저장
+ * 1. Redis 티켓 상태가 ISSUED 이면 DB 접근 없이 건너뜀 (대부분의 재전송은 여기서 걸러짐)
+ * 2. 티켓 기록 전에 장애가 났거나 동시에 같은 메시지를 처리하는 경우는 coupon.issue_key 유니크 제약으로 막고,
+ *    제약 위반 시 이미 저장된 쿠폰을 조회해 중복으로 처리
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CouponIssueIdempotencyService {
+    private final CouponRepository couponRepository;
+    private final CouponIssueTicketService couponIssueTicketService;
+    private final MeterRegistry meterRegistry;
+
+    public boolean isAlreadyIssued(CouponDto.IssueMessage message) {
+        if (couponIssueTicketService.isIssued(message.getTicketId())) {
+            skipped(message, "redis");
+            return true;
+        }
+        return false;
+    }
+
+    // 이미 처리된 메시지와 같은 배치 안에서 중복된 메시지를 제외한 나머지 반환
+    public List<CouponDto.IssueMessage> excludeAlreadyIssued(List<CouponDto.IssueMessage> messages) {
+        Set<String> issued = couponIssueTicketService.findIssued(messages.stream()
+                .map(CouponDto.IssueMessage::getTicketId)
+                .filter(Objects::nonNull)
+                .toList());
+        Set<String> seen = new HashSet<>();
+        return messages.stream()
+                .filter(message -> {
+                    String ticketId = message.getTicketId();
+                    if (ticketId == null) {
+                        return true;
+                    }
+                    if (issued.contains(ticketId)) {
+                        skipped(message, "redis");
+                        return false;
+                    }
+                    if (!seen.add(ticketId)) {
+                        skipped(message, "batch");
+                        return false;
+                    }
+                    return true;
+                })
+                .toList();
+    }
+
+    // 유니크 제약 위반 후 호출, 같은 멱등 키로 저장된 쿠폰이 있으면 중복 메시지
+    @Transactional(readOnly = true)
+    public Optional<Coupon> findIssuedCoupon(CouponDto.IssueMessage message) {
+        if (message.getTicketId() == null) {
+            return Optional.empty();
+        }
+        Optional<Coupon> issued = couponRepository.findByIssueKey(message.getTicketId());
+        issued.ifPresent(coupon -> skipped(message, "db"));
+        return issued;
+    }
+
+    // 배치 저장 중 제약 위반 시 호출, 멱등 키별로 이미 저장된 쿠폰 반환 (IN 조회 한 번)
+    @Transactional(readOnly = true)
+    public Map<String, Coupon> findIssuedCoupons(List<CouponDto.IssueMessage> messages) {
+        List<String> issueKeys = messages.stream()
+                .map(CouponDto.IssueMessage::getTicketId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (issueKeys.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Coupon> issued = couponRepository.findByIssueKeyIn(issueKeys).stream()
+                .collect(Collectors.toMap(Coupon::getIssueKey, Function.identity()));
+        messages.stream()
+                .filter(message -> message.getTicketId() != null && issued.containsKey(message.getTicketId()))
+                .forEach(message -> skipped(message, "db"));
+        return issued;
+    }
+
+    private void skipped(CouponDto.IssueMessage message, String source) {
+        log.info("중복 발급 메시지 건너뜀: ticketId={}, policyId={}, userId={}, source={}",
+                message.getTicketId(), message.getPolicyId(), message.getUserId(), source);
+        Counter.builder("coupon.issue.duplicate.skipped")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+}
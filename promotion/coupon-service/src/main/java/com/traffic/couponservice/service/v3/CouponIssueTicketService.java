@@ -0,0 +1,185 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.config.UserIdInterceptor;
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 비동기(v3) 쿠폰 발급 요청의 처리 결과 보관
+ * 발급 요청 시 티켓을 PENDING 으로 만들고, 컨슈머가 저장을 마치면 ISSUED / FAILED 로 갱신
+ * coupon:ticket:{ticketId} 해시에 짧은 TTL 로 저장하므로 클라이언트가 결과를 폴링해도 DB 조회가 발생하지 않음
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CouponIssueTicketService {
+    private static final String COUPON_TICKET_KEY = "coupon:ticket:";
+
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_POLICY_ID = "policyId";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_COUPON_ID = "couponId";
+    private static final String FIELD_COUPON_CODE = "couponCode";
+    private static final String FIELD_REASON = "reason";
+
+    private final RedissonClient redissonClient;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+
+    // 티켓 보관 시간 (결과가 갱신될 때마다 다시 연장)
+    @Value("${coupon.issue.ticket.ttl-seconds:600}")
+    private long ticketTtlSeconds;
+
+    // 발급 요청 티켓 생성, 수량 차감이 끝난 뒤 Kafka 전송 직전에 호출 (컨슈머의 결과 기록보다 먼저 저장되어야 함)
+    public String createTicket(Long policyId, Long userId) {
+        String ticketId = String.valueOf(snowflakeIdGenerator.nextId());
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_STATUS, CouponDto.IssueStatus.PENDING.name());
+        fields.put(FIELD_POLICY_ID, String.valueOf(policyId));
+        fields.put(FIELD_USER_ID, String.valueOf(userId));
+
+        RBatch batch = redissonClient.createBatch();
+        put(batch, ticketId, fields);
+        executeQuietly(batch);
+
+        return ticketId;
+    }
+
+    public void markIssued(String ticketId, Coupon coupon) {
+        if (ticketId == null) {
+            return;     // 티켓 도입 이전에 발행된 메시지
+        }
+        RBatch batch = redissonClient.createBatch();
+        put(batch, ticketId, issuedFields(coupon));
+        executeQuietly(batch);
+    }
+
+    // 배치 컨슈머용, 여러 티켓을 한 번의 파이프라인으로 갱신
+    public void markIssued(Map<String, Coupon> couponsByTicketId) {
+        if (couponsByTicketId.isEmpty()) {
+            return;
+        }
+        RBatch batch = redissonClient.createBatch();
+        couponsByTicketId.forEach((ticketId, coupon) -> {
+            if (ticketId != null) {
+                put(batch, ticketId, issuedFields(coupon));
+            }
+        });
+        executeQuietly(batch);
+    }
+
+    public void markFailed(String ticketId, String reason) {
+        if (ticketId == null) {
+            return;
+        }
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_STATUS, CouponDto.IssueStatus.FAILED.name());
+        fields.put(FIELD_REASON, reason != null ? reason : "쿠폰 발급 중 오류가 발생했습니다");
+
+        RBatch batch = redissonClient.createBatch();
+        put(batch, ticketId, fields);
+        executeQuietly(batch);
+    }
+
+    // 이미 저장이 끝난 발급 요청인지 확인 (컨슈머 중복 처리 방지용 빠른 확인, 최종 판단은 DB 유니크 제약)
+    public boolean isIssued(String ticketId) {
+        if (ticketId == null) {
+            return false;
+        }
+        return CouponDto.IssueStatus.ISSUED.name().equals(ticket(ticketId).get(FIELD_STATUS));
+    }
+
+    // 배치 컨슈머용, 여러 티켓의 상태를 한 번의 파이프라인으로 조회하여 저장이 끝난 티켓만 반환
+    public Set<String> findIssued(Collection<String> ticketIds) {
+        if (ticketIds.isEmpty()) {
+            return Set.of();
+        }
+        RBatch batch = redissonClient.createBatch();
+        Map<String, RFuture<String>> statuses = new HashMap<>();
+        for (String ticketId : ticketIds) {
+            if (ticketId != null) {
+                RMapAsync<String, String> ticket = batch.getMap(COUPON_TICKET_KEY + ticketId, StringCodec.INSTANCE);
+                statuses.put(ticketId, ticket.getAsync(FIELD_STATUS));
+            }
+        }
+        batch.execute();
+
+        Set<String> issued = new HashSet<>();
+        statuses.forEach((ticketId, status) -> {
+            if (CouponDto.IssueStatus.ISSUED.name().equals(status.toCompletableFuture().getNow(null))) {
+                issued.add(ticketId);
+            }
+        });
+        return issued;
+    }
+
+    // 현재 사용자의 티켓만 조회 가능, 없거나 만료되었으면 empty
+    public Optional<CouponDto.IssueTicketResponse> getTicket(String ticketId) {
+        Map<String, String> fields = ticket(ticketId).readAllMap();
+        if (fields.isEmpty() || !String.valueOf(UserIdInterceptor.getCurrentUserId()).equals(fields.get(FIELD_USER_ID))) {
+            return Optional.empty();
+        }
+
+        return Optional.of(CouponDto.IssueTicketResponse.builder()
+                .ticketId(ticketId)
+                .status(CouponDto.IssueStatus.valueOf(fields.get(FIELD_STATUS)))
+                .policyId(toLong(fields.get(FIELD_POLICY_ID)))
+                .couponId(toLong(fields.get(FIELD_COUPON_ID)))
+                .couponCode(fields.get(FIELD_COUPON_CODE))
+                .reason(fields.get(FIELD_REASON))
+                .build());
+    }
+
+    private Map<String, String> issuedFields(Coupon coupon) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_STATUS, CouponDto.IssueStatus.ISSUED.name());
+        fields.put(FIELD_COUPON_CODE, coupon.getCouponCode());
+        if (coupon.getId() != null) {
+            fields.put(FIELD_COUPON_ID, String.valueOf(coupon.getId()));
+        }
+        return fields;
+    }
+
+    // 필드 저장과 TTL 설정을 같은 파이프라인에 추가
+    private void put(RBatch batch, String ticketId, Map<String, String> fields) {
+        RMapAsync<String, String> ticket = batch.getMap(COUPON_TICKET_KEY + ticketId, StringCodec.INSTANCE);
+        ticket.putAllAsync(fields);
+        ticket.expireAsync(Duration.ofSeconds(ticketTtlSeconds));
+    }
+
+    // 티켓은 조회용 부가 정보이므로 저장에 실패해도 발급 흐름은 계속 진행 (이미 차감한 수량을 되돌리지 않기 위함)
+    private void executeQuietly(RBatch batch) {
+        try {
+            batch.execute();
+        } catch (Exception e) {
+            log.warn("쿠폰 발급 티켓 저장 실패: {}", e.getMessage());
+        }
+    }
+
+    private RMap<String, String> ticket(String ticketId) {
+        return redissonClient.getMap(COUPON_TICKET_KEY + ticketId, StringCodec.INSTANCE);
+    }
+
+    private Long toLong(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+}
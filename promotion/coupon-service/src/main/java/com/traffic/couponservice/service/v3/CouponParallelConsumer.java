@@ -0,0 +1,133 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 파티션 내 메시지를 userId 별 레인으로 나눠 동시에 저장 (같은 사용자의 메시지는 레인 안에서 순서대로 처리)
+// 메시지 키가 policyId 라 인기 정책이 한 파티션 = 한 컨슈머 스레드에 몰려도, 사용자 간에는 순서가 필요 없으므로 여러 코어에서 처리
+// 모든 레인이 끝난 뒤 실패한 메시지 중 가장 앞선 위치를 BatchListenerFailedException 으로 알려,
+// 에러 핸들러가 그 앞까지만 오프셋을 커밋하고 실패 위치부터 다시 처리하도록 함 (이미 저장된 메시지는 멱등 키로 건너뜀)
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "coupon.kafka.consumer.mode", havingValue = "parallel")
+public class CouponParallelConsumer {
+    private final CouponService couponService;
+    private final CouponIssueTicketService couponIssueTicketService;
+    private final CouponIssueIdempotencyService couponIssueIdempotencyService;
+    private final DistributionSummary lanesPerBatch;
+    private final ExecutorService executor;
+
+    public CouponParallelConsumer(CouponService couponService,
+                                  CouponIssueTicketService couponIssueTicketService,
+                                  CouponIssueIdempotencyService couponIssueIdempotencyService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${coupon.kafka.consumer.parallel.threads:0}") int threads) {
+        this.couponService = couponService;
+        this.couponIssueTicketService = couponIssueTicketService;
+        this.couponIssueIdempotencyService = couponIssueIdempotencyService;
+        this.lanesPerBatch = DistributionSummary.builder("coupon.kafka.consumer.parallel.lanes")
+                .description("poll() 한 번에 동시에 처리한 사용자 레인 수")
+                .register(meterRegistry);
+        // 0 이면 CPU 코어 수만큼 사용 (모든 리스너 컨테이너가 같은 스레드 풀을 공유)
+        this.executor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                new CustomizableThreadFactory("coupon-issue-lane-"));
+    }
+
+    @KafkaListener(id = CouponConsumerConcurrencyScaler.LISTENER_ID, topics = "coupon-issue-requests", groupId = "coupon-service", containerFactory = "couponKafkaListenerContainerFactory")
+    public void consumeCouponIssueRequests(List<ConsumerRecord<String, CouponDto.IssueMessage>> records){
+        log.info("쿠폰 병렬 발급 : {}건", records.size());
+        List<CouponDto.IssueMessage> messages = records.stream()
+                .map(ConsumerRecord::value)
+                .toList();
+        // 재전송 등으로 이미 처리된 메시지 제외 (티켓 상태 파이프라인 조회 한 번)
+        Set<CouponDto.IssueMessage> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+        pending.addAll(couponIssueIdempotencyService.excludeAlreadyIssued(messages));
+
+        // userId 별 레인 (레인 안의 순서 = 배치 안의 순서)
+        Map<Long, List<Integer>> lanes = new LinkedHashMap<>();
+        for (int index = 0; index < messages.size(); index++) {
+            if (pending.contains(messages.get(index))) {
+                lanes.computeIfAbsent(messages.get(index).getUserId(), userId -> new ArrayList<>()).add(index);
+            }
+        }
+        if (lanes.isEmpty()) {
+            return;
+        }
+        lanesPerBatch.record(lanes.size());
+
+        List<CompletableFuture<LaneFailure>> results = lanes.values().stream()
+                .map(indexes -> CompletableFuture.supplyAsync(() -> processLane(messages, indexes), executor))
+                .toList();
+
+        LaneFailure first = null;
+        for (CompletableFuture<LaneFailure> result : results) {
+            LaneFailure failure = result.join();
+            if (failure != null && (first == null || failure.index() < first.index())) {
+                first = failure;
+            }
+        }
+        if (first != null) {
+            throw new BatchListenerFailedException("쿠폰 병렬 발급 실패", first.cause(), first.index());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    // 레인의 메시지를 순서대로 저장, 실패하면 같은 사용자의 이후 메시지는 처리하지 않고 실패 위치 반환
+    private LaneFailure processLane(List<CouponDto.IssueMessage> messages, List<Integer> indexes) {
+        for (int index : indexes) {
+            CouponDto.IssueMessage message = messages.get(index);
+            try {
+                issue(message);
+            } catch (Exception e) {
+                log.error("쿠폰 발급 실패 : ticketId={}, error={}", message.getTicketId(), e.getMessage());
+                return new LaneFailure(index, e);
+            }
+        }
+        return null;
+    }
+
+    private void issue(CouponDto.IssueMessage message) {
+        try {
+            Coupon coupon = couponService.issueCoupon(message);
+            couponIssueTicketService.markIssued(message.getTicketId(), coupon);      // 트랜잭션 커밋 이후 기록
+        } catch (DataIntegrityViolationException e) {
+            // 같은 멱등 키로 이미 저장된 경우 (티켓 기록 전 장애, 동시 처리)
+            Optional<Coupon> issued = couponIssueIdempotencyService.findIssuedCoupon(message);
+            if (issued.isEmpty()) {
+                throw e;
+            }
+            couponIssueTicketService.markIssued(message.getTicketId(), issued.get());
+        }
+    }
+
+    private record LaneFailure(int index, Exception cause) {
+    }
+}
@@ -1,11 +1,12 @@
 package com.traffic.couponservice.service.v3;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.couponservice.config.CouponRedisCodecs;
 import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
 import com.traffic.couponservice.dto.v3.CouponPolicyDto;
 import com.traffic.couponservice.exception.CouponPolicyNotFoundException;
 import com.traffic.couponservice.repository.CouponPolicyRepository;
+import com.traffic.couponservice.service.v2.CouponPolicyCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RAtomicLong;
@@ -22,13 +23,14 @@ import java.util.List;
 public class CouponPolicyService {
     private final CouponPolicyRepository couponPolicyRepository;
     private final RedissonClient redissonClient;
-    private final ObjectMapper objectMapper;
+    private final CouponRedisCodecs couponRedisCodecs;
+    private final CouponPolicyCache couponPolicyCache;
 
     private static final String COUPON_QUANTITY_KEY = "coupon:quantity:";
     private static final String COUPON_POLICY_KEY = "coupon:policy:";
 
     @Transactional
-    public CouponPolicy createCouponPolicy(CouponPolicyDto.CreateRequest request) throws JsonProcessingException {
+    public CouponPolicy createCouponPolicy(CouponPolicyDto.CreateRequest request) {
         CouponPolicy couponPolicy = request.toEntity();
         CouponPolicy savedPolicy = couponPolicyRepository.save(couponPolicy);
 
@@ -40,29 +42,36 @@ public class CouponPolicyService {
 
         // Redis에 정책 정보 저장
         String policyKey = COUPON_POLICY_KEY + savedPolicy.getId();
-        // Json 형식으로 직렬화
-        // savedPolicy 객체를 CouponPolicyDto.Response로 직렬화
-        String policyJson = objectMapper.writeValueAsString(CouponPolicyDto.Response.from(savedPolicy));
+        // savedPolicy 객체를 CouponPolicyDto.Response로 직렬화 (coupon.redis.codec, 기본 Smile 바이너리)
         // 객체를 Redis에 저장시키기 위해 RBucket 사용
-        RBucket<String> bucket = redissonClient.getBucket(policyKey);
-        bucket.set(policyJson);
+        RBucket<CouponPolicyDto.Response> bucket = redissonClient.getBucket(policyKey, couponRedisCodecs.getCouponPolicyCodec());
+        bucket.set(CouponPolicyDto.Response.from(savedPolicy));
+        // 모든 노드의 로컬 정책 캐시 무효화
+        couponPolicyCache.invalidate(savedPolicy.getId());
 
         return savedPolicy;
     }
 
     public CouponPolicy getCouponPolicy(Long id){
-        String policyKey = COUPON_POLICY_KEY + id;
-        RBucket<String> bucket = redissonClient.getBucket(policyKey);
+        return getCouponPolicySnapshot(id).getPolicy();
+    }
 
-        String policyJson = bucket.get();
+    // 발급 경로용, 로컬 캐시에 있으면 Redis 조회와 JSON 파싱 없이 반환
+    public CouponPolicySnapshot getCouponPolicySnapshot(Long id){
+        return couponPolicyCache.get(id, this::loadCouponPolicy);
+    }
 
-        if(policyJson != null){
-            try{
-                // Json 객체인 policyJson를 Java 객체인 CouponPolicy로 변환
-                return objectMapper.readValue(policyJson, CouponPolicy.class);
-            } catch (JsonProcessingException e) {
-                log.error("쿠폰 정책 정보를 Json으로 파싱하는 도중 오류 발생");
+    private CouponPolicy loadCouponPolicy(Long id){
+        String policyKey = COUPON_POLICY_KEY + id;
+        // 저장된 정책 정보를 CouponPolicy로 변환, 이전 형식으로 저장된 값은 null (DB에서 조회)
+        RBucket<CouponPolicy> bucket = redissonClient.getBucket(policyKey, couponRedisCodecs.getCouponPolicyCodec());
+        try{
+            CouponPolicy couponPolicy = bucket.get();
+            if(couponPolicy != null){
+                return couponPolicy;
             }
+        } catch (Exception e) {
+            log.error("쿠폰 정책 정보를 변환하는 도중 오류 발생: {}", e.getMessage());
         }
 
         return couponPolicyRepository.findById(id)
@@ -1,26 +1,54 @@
 package com.traffic.couponservice.service.v3;
 
 import com.traffic.couponservice.dto.v3.CouponDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CouponProducer {
     private static final String TOPIC = "coupon-issue-requests";
     private final KafkaTemplate<String, CouponDto.IssueMessage> kafkaTemplate;
+    private final CouponIssueCompensator couponIssueCompensator;
+    private final MeterRegistry meterRegistry;
 
     public void sendCouponIssueRequest(CouponDto.IssueMessage message) {
-        kafkaTemplate.send(TOPIC, String.valueOf(message.getPolicyId()), message)
-                .whenComplete((result, ex)-> {
-                    if(ex==null){
-                        log.info("Sent message = [{}] , offset=[{}]", message, result.getRecordMetadata().offset());
-                    }else{
-                        log.error("Unable to send message=[{}] , Error Message = {}", message, ex.getMessage());
-                    }
-                });
+        // send() 호출부터 브로커 ack 까지의 지연 시간 (linger/배치 대기 포함)
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendResult<String, CouponDto.IssueMessage>> future;
+        try {
+            future = kafkaTemplate.send(TOPIC, String.valueOf(message.getPolicyId()), message);
+        } catch (RuntimeException e) {
+            // 직렬화 / 메타데이터 대기 시간 초과 등 send() 가 바로 던진 예외도 같은 방식으로 보상 (티켓 단위로 한 번만 적용)
+            log.error("Unable to send message=[{}] , Error Message = {}", message, e.getMessage());
+            couponIssueCompensator.compensate(message, "쿠폰 발급 요청 전송에 실패했습니다.");
+            throw e;
+        }
+        future.whenComplete((result, ex)-> {
+            sample.stop(Timer.builder("coupon.kafka.send")
+                    .tag("result", ex == null ? "success" : "failure")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            if(ex==null){
+                log.info("Sent message = [{}] , offset=[{}]", message, result.getRecordMetadata().offset());
+            }else{
+                log.error("Unable to send message=[{}] , Error Message = {}", message, ex.getMessage());
+                // 요청 시점에 차감한 수량과 중복 발급 기록을 DLT 와 같은 방식으로 되돌리고 티켓을 실패 처리
+                // 콜백은 프로듀서 I/O 스레드에서 실행되므로 DB / Redis 호출은 다른 스레드에서 수행
+                CompletableFuture.runAsync(() -> couponIssueCompensator.compensate(message, "쿠폰 발급 요청 전송에 실패했습니다."))
+                        .exceptionally(compensateEx -> {
+                            log.error("Unable to compensate unsent message=[{}] , Error Message = {}", message, compensateEx.getMessage());
+                            return null;
+                        });
+            }
+        });
     }
 }
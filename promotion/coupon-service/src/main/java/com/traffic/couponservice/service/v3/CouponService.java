@@ -5,22 +5,33 @@ import com.traffic.couponservice.aop.CouponMetered;
 import com.traffic.couponservice.config.UserIdInterceptor;
 import com.traffic.couponservice.domain.Coupon;
 import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
 import com.traffic.couponservice.dto.v3.CouponDto;
+import com.traffic.couponservice.exception.CouponAlreadyUsedException;
 import com.traffic.couponservice.exception.CouponIssueException;
 import com.traffic.couponservice.exception.CouponNotFoundException;
+import com.traffic.couponservice.repository.CouponJdbcRepository;
 import com.traffic.couponservice.repository.CouponRepository;
+import com.traffic.couponservice.service.CouponCodeGenerator;
+import com.traffic.couponservice.service.v2.CouponDuplicateIssueGuard;
+import com.traffic.couponservice.service.v2.CouponIssueScriptService;
+import com.traffic.couponservice.service.v2.CouponQuotaLeaseService;
+import com.traffic.couponservice.service.v2.CouponSoldOutRegistry;
 import com.traffic.couponservice.service.v2.CouponStateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RAtomicLong;
 import org.redisson.api.RLock;
-import org.redisson.api.RSet;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -29,30 +40,50 @@ import java.util.concurrent.TimeUnit;
 public class CouponService {
     private static final String COUPON_QUANTITY_KEY = "coupon:quantity:";
     private static final String COUPON_LOCK_KEY = "coupon:lock:";
-    private static final String COUPON_USER_ID = "coupon:userId:";
     private static final long LOCK_WAIT_TIME = 3;       // Lock 대기 시간 제한
     private static final long LOCK_LEASE_TIME = 5;      // 자동 만료 시간
+    private static final String ISSUE_MODE_SCRIPT = "script";
+    private static final String ISSUE_MODE_LEASE = "lease";
 
     private final RedissonClient redissonClient;
     private final CouponRepository couponRepository;
+    private final CouponJdbcRepository couponJdbcRepository;
     private final CouponProducer couponProducer;
     private final CouponStateService couponStateService;
     private final CouponPolicyService couponPolicyService;
+    private final CouponIssueScriptService couponIssueScriptService;
+    private final CouponQuotaLeaseService couponQuotaLeaseService;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final CouponDuplicateIssueGuard couponDuplicateIssueGuard;
+    private final CouponCodeGenerator couponCodeGenerator;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final CouponIssueTicketService couponIssueTicketService;
+
+    // 발급 방식 (lock : RLock + RAtomicLong, script : Lua 스크립트 단일 호출, lease : 노드 로컬 임대 수량)
+    @Value("${coupon.issue.mode:lock}")
+    private String issueMode;
 
     @Transactional(readOnly = true)
     @CouponMetered(version = "v3")
-    public void requestCouponIssue(CouponDto.IssueRequest request){
+    public String requestCouponIssue(CouponDto.IssueRequest request){
+        if (ISSUE_MODE_SCRIPT.equals(issueMode)) {
+            return requestCouponIssueWithScript(request);
+        }
+        if (ISSUE_MODE_LEASE.equals(issueMode)) {
+            return requestCouponIssueWithLease(request);
+        }
+
+        // 이미 소진된 정책이면 락/Redis 접근 없이 바로 거절
+        if (couponSoldOutRegistry.isSoldOut(request.getCouponPolicyId())) {
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
         String quantityKey = COUPON_QUANTITY_KEY + request.getCouponPolicyId();
         String lockKey = COUPON_LOCK_KEY + request.getCouponPolicyId();
         RLock lock = redissonClient.getLock(lockKey);
 
         try{
-            // 이미 발급받은 유저인지 확인
             Long userId = UserIdInterceptor.getCurrentUserId();     // InterCepter를 통한 현재 Header에 저장되어 있는 UserId값 추출
-//            RSet<Long> userIdSet = redissonClient.getSet(COUPON_USER_ID+userId);
-//            if(userIdSet.contains(userId)){
-//                throw new CouponIssueException("이미 발급받은 쿠폰입니다. 더 이상 발급이 불가능 합니다");
-//            }
 
             // Redis에서 Lock 시간 설정
             // 여기서 락을 걸어주는 이유는 동시에 2명의 유저가 접속했을때 해당 쿠폰 정책을 동시에 읽게 되면 decrementAndGet 기능이
@@ -63,34 +94,47 @@ public class CouponService {
                 throw new CouponIssueException("쿠폰 발급 요청이 많아 쿠폰 발급이 불가능 합니다. 잠시 후 다시 시도해주세요");
             }
 
-            CouponPolicy couponPolicy = couponPolicyService.getCouponPolicy(request.getCouponPolicyId());
+            CouponPolicySnapshot couponPolicy = couponPolicyService.getCouponPolicySnapshot(request.getCouponPolicyId());
 
-            LocalDateTime now = LocalDateTime.now();
-            if (now.isBefore(couponPolicy.getStartTime()) || now.isAfter(couponPolicy.getEndTime())) {
+            if (!couponPolicy.isInIssuePeriod(System.currentTimeMillis())) {
                 throw new IllegalStateException("쿠폰 발급 기간이 아닙니다.");
             }
 
-            // 쿠폰 사용하여 수량 체크 및 감소
+            // 수량 키가 없으면(Redis flush 등) CouponPolicyWarmer 가 중복 발급 비트맵을 복구하고 수량 키를 만들 때까지 발급하지 않음
+            // 없는 키에 decrementAndGet 하면 키가 0 으로 생겨 워밍업이 수량을 복구하지 못함
             RAtomicLong atomicQuantity = redissonClient.getAtomicLong(quantityKey);
-            long remainingQuantity = atomicQuantity.decrementAndGet();
+            if (!atomicQuantity.isExists()) {
+                throw new CouponIssueException("쿠폰 수량 정보를 찾을 수 없습니다.");
+            }
+
+            // 중복 발급 확인 및 기록 (비트맵 SETBIT 한 번으로 처리)
+            couponDuplicateIssueGuard.markIssued(couponPolicy, userId);
+
+            // 쿠폰 사용하여 수량 체크 및 감소
+            long remainingQuantity;
+            try {
+                remainingQuantity = atomicQuantity.decrementAndGet();
+            } catch (RuntimeException e) {
+                couponDuplicateIssueGuard.release(request.getCouponPolicyId(), userId);     // 차감 전 실패는 중복 발급 기록만 되돌림
+                throw e;
+            }
 
             // 발급할 쿠폰이 없다면
             if (remainingQuantity < 0) {
                 // 음수의 값으로 유지하게 되면 오류가 발생할 수 있기에 다시 증가 시켜줌
                 atomicQuantity.incrementAndGet();
+                couponDuplicateIssueGuard.release(request.getCouponPolicyId(), userId);
+                couponSoldOutRegistry.markSoldOut(request.getCouponPolicyId());
                 throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
             }
 
-            //  중복 유저 발급을 방지하기 위한 Redis Set에 UserId 저장
-//            userIdSet.add(userId);
-
-            // Kafka로 쿠폰 발급 요청 전송
-            couponProducer.sendCouponIssueRequest(
-                    CouponDto.IssueMessage.builder()
-                            .policyId(request.getCouponPolicyId())
-                            .userId(UserIdInterceptor.getCurrentUserId())
-                            .build()
-            );
+            // Kafka로 쿠폰 발급 요청 전송 (차감 이후 실패하면 수량과 중복 발급 기록을 함께 되돌림)
+            String ticketId = sendIssueRequest(request.getCouponPolicyId(), userId,
+                    () -> couponIssueScriptService.restore(request.getCouponPolicyId(), userId));
+            if (remainingQuantity == 0) {
+                couponSoldOutRegistry.markSoldOut(request.getCouponPolicyId());    // 마지막 수량 발급
+            }
+            return ticketId;
         }catch (InterruptedException e){
             // Lock인 상태에서 인터럽트 요청이 들어오면 해당 메서드는 즉시 종료되고 InterruptedException이 발생
             // InterruptedException이 발생하면 인터럽트 상태 플래그가 초기화되므로,
@@ -104,20 +148,84 @@ public class CouponService {
         }
     }
 
+    // 락 없이 Lua 스크립트 한 번으로 기간/중복/수량 확인 및 차감 후 Kafka로 발급 요청 전송
+    private String requestCouponIssueWithScript(CouponDto.IssueRequest request) {
+        if (couponSoldOutRegistry.isSoldOut(request.getCouponPolicyId())) {
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
+        Long userId = UserIdInterceptor.getCurrentUserId();
+        CouponPolicySnapshot couponPolicy = couponPolicyService.getCouponPolicySnapshot(request.getCouponPolicyId());
+
+        couponIssueScriptService.issue(couponPolicy, userId);
+
+        return sendIssueRequest(request.getCouponPolicyId(), userId,
+                () -> couponIssueScriptService.restore(request.getCouponPolicyId(), userId));
+    }
+
+    // 노드가 임대한 로컬 수량에서 차감 후 Kafka로 발급 요청 전송
+    private String requestCouponIssueWithLease(CouponDto.IssueRequest request) {
+        // 소진된 정책은 중복 발급 비트 기록(SETBIT)과 되돌리기 없이 바로 거절 (이 노드에 남은 임대 수량이 있으면 계속 발급)
+        if (couponQuotaLeaseService.isSoldOut(request.getCouponPolicyId())) {
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
+        Long userId = UserIdInterceptor.getCurrentUserId();
+        CouponPolicySnapshot couponPolicy = couponPolicyService.getCouponPolicySnapshot(request.getCouponPolicyId());
+
+        if (!couponPolicy.isInIssuePeriod(System.currentTimeMillis())) {
+            throw new CouponIssueException("쿠폰 발급 기간이 아닙니다.");
+        }
+
+        couponDuplicateIssueGuard.markIssued(couponPolicy, userId);
+        if (!couponQuotaLeaseService.tryAcquire(couponPolicy.getId())) {
+            couponDuplicateIssueGuard.release(couponPolicy.getId(), userId);
+            throw new CouponIssueException("쿠폰이 모두 소진되었습니다.");
+        }
+
+        return sendIssueRequest(request.getCouponPolicyId(), userId, () -> {
+            couponQuotaLeaseService.release(couponPolicy.getId());
+            couponDuplicateIssueGuard.release(couponPolicy.getId(), userId);
+        });
+    }
+
+    // 발급 결과를 조회할 티켓을 만든 뒤 Kafka로 발급 요청 전송
+    // 티켓 생성 실패는 restore 로 차감한 수량과 중복 발급 기록을 되돌리고, 전송 실패(동기 예외 포함)는 CouponProducer 가 티켓 단위로 보상
+    private String sendIssueRequest(Long policyId, Long userId, Runnable restore) {
+        String ticketId;
+        try {
+            ticketId = couponIssueTicketService.createTicket(policyId, userId);
+        } catch (RuntimeException e) {
+            restore.run();
+            throw e;
+        }
+        couponProducer.sendCouponIssueRequest(
+                CouponDto.IssueMessage.builder()
+                        .ticketId(ticketId)
+                        .policyId(policyId)
+                        .userId(userId)
+                        .build()
+        );
+        return ticketId;
+    }
+
     @Transactional
-    public void issueCoupon(CouponDto.IssueMessage message) {
+    public Coupon issueCoupon(CouponDto.IssueMessage message) {
         try {
             CouponPolicy policy = couponPolicyService.getCouponPolicy(message.getPolicyId());
             if (policy == null) {
                 throw new IllegalArgumentException("쿠폰 정책을 찾을 수 없습니다.");
             }
+            // 멱등 키가 같은 쿠폰이 이미 있으면 커밋 시 uk_coupon_issue_key 제약 위반 (DataIntegrityViolationException)
             Coupon coupon = couponRepository.save(Coupon.builder()
                     .couponPolicy(policy)
                     .userId(message.getUserId())
-                    .couponCode(generateCouponCode())
+                    .couponCode(couponCodeGenerator.generate())
+                    .issueKey(message.getTicketId())
                     .build());
 
             log.info("Coupon issued successfully: policyId={}, userId={}", message.getPolicyId(), message.getUserId());
+            return coupon;
 
         } catch (Exception e) {
             log.error("Failed to issue coupon: {}", e.getMessage());
@@ -125,12 +233,37 @@ public class CouponService {
         }
     }
 
+    // 여러 발급 요청을 하나의 트랜잭션, 하나의 JDBC 배치로 저장 (반환 순서 = 메시지 순서)
+    @Transactional
+    public List<Coupon> issueCoupons(List<CouponDto.IssueMessage> messages) {
+        Map<Long, CouponPolicy> policies = new HashMap<>();
+        List<Coupon> coupons = messages.stream()
+                .map(message -> Coupon.builder()
+                        .id(snowflakeIdGenerator.nextId())      // 배치 INSERT 후 발급 티켓에 쿠폰 ID 를 기록하도록 미리 채번
+                        .couponPolicy(policies.computeIfAbsent(message.getPolicyId(), couponPolicyService::getCouponPolicy))
+                        .userId(message.getUserId())
+                        .couponCode(couponCodeGenerator.generate())
+                        .issueKey(message.getTicketId())
+                        .build())
+                .toList();
+
+        couponJdbcRepository.batchInsert(coupons);
+        log.info("Coupons issued in batch: count={}", coupons.size());
+        return coupons;
+    }
+
+    // 락 없이 조회 후 검증하고, 조회한 상태에서 바뀌지 않았을 때만 조건부 UPDATE (행 락은 UPDATE 부터 커밋까지만)
     @Transactional
     public Coupon useCoupon(Long couponId, Long orderId) {
-        Coupon coupon = couponRepository.findByIdWithLock(couponId)
+        Coupon coupon = couponRepository.findByIdWithPolicy(couponId)
                 .orElseThrow(() -> new CouponNotFoundException("쿠폰을 찾을 수 없습니다."));
 
-        coupon.use(orderId);
+        coupon.validateUse();
+        LocalDateTime usedAt = LocalDateTime.now();
+        if (couponRepository.compareAndSetStatus(couponId, coupon.getStatus(), coupon.getVersion(), Coupon.Status.USED, orderId, usedAt) == 0) {
+            throw new CouponAlreadyUsedException("이미 사용된 쿠폰입니다.");
+        }
+        coupon.use(orderId, usedAt);
         couponStateService.updateCouponState(coupon);
 
         return coupon;
@@ -138,20 +271,20 @@ public class CouponService {
 
     @Transactional
     public Coupon cancelCoupon(Long couponId) {
-        Coupon coupon = couponRepository.findByIdAndUserId(couponId, UserIdInterceptor.getCurrentUserId())
+        Coupon coupon = couponRepository.findByIdAndUserIdWithPolicy(couponId, UserIdInterceptor.getCurrentUserId())
                 .orElseThrow(() -> new IllegalArgumentException("쿠폰을 찾을 수 없습니다."));
 
         if (!coupon.isUsed()) {
             throw new IllegalStateException("사용되지 않은 쿠폰은 취소할 수 없습니다.");
         }
+        // 동시에 취소하면 한 요청만 반영
+        if (couponRepository.compareAndSetStatus(couponId, Coupon.Status.USED, coupon.getVersion(), Coupon.Status.CANCELLED, null, null) == 0) {
+            throw new IllegalStateException("사용되지 않은 쿠폰은 취소할 수 없습니다.");
+        }
 
         coupon.cancel();
         couponStateService.updateCouponState(coupon);
 
         return coupon;
     }
-
-    private String generateCouponCode() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-    }
 }
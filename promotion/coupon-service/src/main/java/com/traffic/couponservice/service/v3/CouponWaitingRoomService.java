@@ -0,0 +1,163 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.config.UserIdInterceptor;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import com.traffic.couponservice.exception.CouponIssueException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 선착순 쿠폰 발급 대기열 (Virtual Waiting Room)
+ * 발급 시작 시점에 모든 요청이 락 획득을 시도하며 실패/재시도를 반복하지 않도록,
+ * 먼저 coupon:waiting:{policyId} Sorted Set 에 도착 순서대로 줄을 세우고 스케줄러가 초당 admit-per-second 명씩 입장시킴
+ * 입장한 사용자는 coupon:admitted:{policyId} 에 (만료 시각을 score 로) 기록되고, 조회 시 서명된 입장 토큰을 받아 발급 API 를 호출
+ * 입장 속도는 Redis 에 저장된 마지막 입장 시각 기준으로 계산하므로 여러 노드에서 스케줄러가 동시에 돌아도 전체 속도는 유지됨
+ * coupon.waiting-room.enabled=true 일 때만 생성 (사용하지 않으면 대기열 API 와 입장 토큰 검증 모두 없음)
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "coupon.waiting-room.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class CouponWaitingRoomService {
+    private static final String WAITING_KEY = "coupon:waiting:";
+    private static final String ADMITTED_KEY = "coupon:admitted:";
+    private static final String LAST_ADMIT_KEY = "coupon:waiting:last-admit:";
+    private static final String WAITING_POLICIES_KEY = "coupon:waiting:policies";
+
+    private static final long ALREADY_ADMITTED = -1;
+
+    // 입장 시간이 남아 있으면 -1, 아니면 대기열에 추가(이미 있으면 유지)하고 0부터 시작하는 순번 반환
+    private static final String ENTER_SCRIPT = """
+            local time = redis.call('TIME')
+            local admittedUntil = tonumber(redis.call('ZSCORE', KEYS[2], ARGV[1]))
+            if admittedUntil and admittedUntil > tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) then
+                return -1
+            end
+            redis.call('ZREM', KEYS[2], ARGV[1])
+            -- 도착 시각(마이크로초), 숫자로 변환하면 Lua 문자열 변환 시 정밀도가 떨어지므로 문자열로 이어 붙임
+            local arrivedAt = time[1] .. string.format('%06d', tonumber(time[2]))
+            redis.call('ZADD', KEYS[1], 'NX', arrivedAt, ARGV[1])
+            redis.call('SADD', KEYS[3], ARGV[2])
+            return redis.call('ZRANK', KEYS[1], ARGV[1])
+            """;
+
+    // 마지막 입장 이후 흐른 시간만큼(최대 1초분) 대기열 앞에서 꺼내 입장 처리, 비어 있는 대기열은 목록에서 제거
+    private static final String ADMIT_SCRIPT = """
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', now)
+
+            if redis.call('ZCARD', KEYS[1]) == 0 then
+                if redis.call('ZCARD', KEYS[2]) == 0 then
+                    redis.call('SREM', KEYS[4], ARGV[3])
+                end
+                return 0
+            end
+
+            local last = tonumber(redis.call('GET', KEYS[3])) or (now - 1000)
+            local elapsed = math.min(now - last, 1000)
+            local count = math.floor(elapsed * tonumber(ARGV[1]) / 1000)
+            if count <= 0 then
+                return 0
+            end
+            redis.call('SET', KEYS[3], now, 'PX', 60000)
+
+            local popped = redis.call('ZPOPMIN', KEYS[1], count)
+            local expiresAt = now + tonumber(ARGV[2])
+            for i = 1, #popped, 2 do
+                redis.call('ZADD', KEYS[2], expiresAt, popped[i])
+            end
+            return #popped / 2
+            """;
+
+    private final RedissonClient redissonClient;
+    private final CouponAdmissionTokenProvider couponAdmissionTokenProvider;
+    private final MeterRegistry meterRegistry;
+
+    // 초당 입장 인원, 측정된 발급 처리량에 맞춰 설정
+    @Value("${coupon.waiting-room.admit-per-second:100}")
+    private long admitPerSecond;
+
+    // 입장 후 발급 API 를 호출할 수 있는 시간
+    @Value("${coupon.waiting-room.admission-ttl-seconds:60}")
+    private long admissionTtlSeconds;
+
+    // 대기열 등록 후 현재 상태 반환
+    public CouponDto.WaitingResponse enter(Long policyId) {
+        Long userId = UserIdInterceptor.getCurrentUserId();
+        Long rank = script().eval(RScript.Mode.READ_WRITE, ENTER_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(WAITING_KEY + policyId, ADMITTED_KEY + policyId, WAITING_POLICIES_KEY),
+                String.valueOf(userId), String.valueOf(policyId));
+
+        if (rank == ALREADY_ADMITTED) {
+            return admitted(policyId, userId)
+                    .orElseThrow(() -> new CouponIssueException("대기열 입장 시간이 만료되었습니다. 다시 시도해주세요"));
+        }
+        return CouponDto.WaitingResponse.waiting(policyId, rank + 1);
+    }
+
+    // 대기 순번 또는 입장 토큰 조회, 대기열에 없으면 empty
+    public Optional<CouponDto.WaitingResponse> getStatus(Long policyId) {
+        Long userId = UserIdInterceptor.getCurrentUserId();
+        Optional<CouponDto.WaitingResponse> admitted = admitted(policyId, userId);
+        if (admitted.isPresent()) {
+            return admitted;
+        }
+
+        Integer rank = redissonClient.getScoredSortedSet(WAITING_KEY + policyId, StringCodec.INSTANCE)
+                .rank(String.valueOf(userId));
+        return Optional.ofNullable(rank)
+                .map(r -> CouponDto.WaitingResponse.waiting(policyId, r + 1L));
+    }
+
+    public boolean verifyAdmission(Long policyId, String admissionToken) {
+        return couponAdmissionTokenProvider.verify(admissionToken, policyId, UserIdInterceptor.getCurrentUserId());
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.waiting-room.admit-interval-ms:200}")
+    public void admit() {
+        Set<String> policyIds = redissonClient.<String>getSet(WAITING_POLICIES_KEY, StringCodec.INSTANCE).readAll();
+        for (String policyId : policyIds) {
+            try {
+                Long admittedCount = script().eval(RScript.Mode.READ_WRITE, ADMIT_SCRIPT, RScript.ReturnType.INTEGER,
+                        List.of(WAITING_KEY + policyId, ADMITTED_KEY + policyId, LAST_ADMIT_KEY + policyId, WAITING_POLICIES_KEY),
+                        String.valueOf(admitPerSecond), String.valueOf(admissionTtlSeconds * 1000), policyId);
+                if (admittedCount > 0) {
+                    Counter.builder("coupon.waiting.admitted")
+                            .tag("policyId", policyId)
+                            .register(meterRegistry)
+                            .increment(admittedCount);
+                }
+            } catch (Exception e) {
+                log.error("대기열 입장 처리 실패: policyId={}, error={}", policyId, e.getMessage());
+            }
+        }
+    }
+
+    private Optional<CouponDto.WaitingResponse> admitted(Long policyId, Long userId) {
+        Double expiresAt = redissonClient.getScoredSortedSet(ADMITTED_KEY + policyId, StringCodec.INSTANCE)
+                .getScore(String.valueOf(userId));
+        if (expiresAt == null) {
+            return Optional.empty();     // 만료된 입장 기록은 스케줄러가 정리 (만료된 토큰은 검증 단계에서 거절됨)
+        }
+        String token = couponAdmissionTokenProvider.issue(policyId, userId, expiresAt.longValue());
+        return Optional.of(CouponDto.WaitingResponse.admitted(policyId, token, expiresAt.longValue()));
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,34 @@
+-- 쿠폰 발급 Lua 스크립트
+-- 발급 기간 확인 -> 중복 발급 확인 -> 잔여 수량 확인 -> 수량 감소 + 발급 유저 기록을 한 번의 호출로 원자적으로 처리
+-- Redis는 스크립트를 단일 스레드로 실행하기 때문에 별도의 분산 락(RLock)이 필요 없음
+--
+-- KEYS[1] : coupon:quantity:{policyId}   (RAtomicLong 으로 저장된 잔여 수량)
+-- KEYS[2] : coupon:issued:{policyId}     (발급받은 유저 비트맵, userId 번째 비트)
+-- ARGV[1] : userId
+-- ARGV[2] : 발급 시작 시각 (epoch millis)
+-- ARGV[3] : 발급 종료 시각 (epoch millis)
+--
+-- 반환값 : 0 이상 = 발급 후 잔여 수량, -1 = 수량 소진, -2 = 중복 발급, -3 = 발급 기간 아님, -4 = 수량 정보 없음
+
+-- 모든 노드가 같은 시계로 판단하도록 Redis 서버 시간을 사용
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+if now < tonumber(ARGV[2]) or now > tonumber(ARGV[3]) then
+    return -3
+end
+
+if redis.call('GETBIT', KEYS[2], ARGV[1]) == 1 then
+    return -2
+end
+
+local quantity = tonumber(redis.call('GET', KEYS[1]))
+if quantity == nil then
+    return -4
+end
+if quantity <= 0 then
+    return -1
+end
+
+local remaining = redis.call('DECR', KEYS[1])
+redis.call('SETBIT', KEYS[2], ARGV[1], 1)
+return remaining
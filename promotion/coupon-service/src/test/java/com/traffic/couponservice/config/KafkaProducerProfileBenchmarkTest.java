@@ -0,0 +1,113 @@
+package com.traffic.couponservice.config;
+
+import com.traffic.couponservice.dto.v3.CouponDto;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 프로듀서 프로파일별 전송 처리량 / ack 지연 비교 (./gradlew :coupon-service:benchmarkTest)
+ * v3 발급 API 처럼 여러 요청 스레드가 동시에 비동기 전송하는 상황을 임베디드 Kafka 로 재현
+ */
+@Tag("benchmark")
+class KafkaProducerProfileBenchmarkTest {
+    private static final String TOPIC = "coupon-issue-requests";
+    private static final int REQUEST_THREADS = 8;
+    private static final int MESSAGES_PER_THREAD = 10_000;
+
+    private static EmbeddedKafkaKraftBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"reliable", "throughput"})
+    @DisplayName("프로듀서 프로파일별 전송 처리량")
+    void sendThroughput(String profile) throws Exception {
+        // given
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        KafkaConfig.applyProducerProfile(config, profile, 5, 65536, "lz4");
+
+        DefaultKafkaProducerFactory<String, CouponDto.IssueMessage> producerFactory = new DefaultKafkaProducerFactory<>(config);
+        KafkaTemplate<String, CouponDto.IssueMessage> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        kafkaTemplate.send(TOPIC, "warm-up", message(0, 0)).get();     // 메타데이터 조회, 커넥션 생성
+
+        ExecutorService executor = Executors.newFixedThreadPool(REQUEST_THREADS);
+        LongAdder ackLatencyNanos = new LongAdder();
+        List<Future<List<CompletableFuture<SendResult<String, CouponDto.IssueMessage>>>>> results = new ArrayList<>();
+
+        // when
+        long start = System.nanoTime();
+        for (int t = 0; t < REQUEST_THREADS; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                List<CompletableFuture<SendResult<String, CouponDto.IssueMessage>>> sends = new ArrayList<>();
+                for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                    long sentAt = System.nanoTime();
+                    CouponDto.IssueMessage message = message(thread, i);
+                    sends.add(kafkaTemplate.send(TOPIC, String.valueOf(message.getPolicyId()), message)
+                            .whenComplete((result, ex) -> ackLatencyNanos.add(System.nanoTime() - sentAt)));
+                }
+                return sends;
+            }));
+        }
+        int acked = 0;
+        for (Future<List<CompletableFuture<SendResult<String, CouponDto.IssueMessage>>>> result : results) {
+            for (CompletableFuture<SendResult<String, CouponDto.IssueMessage>> send : result.get()) {
+                send.get(60, TimeUnit.SECONDS);
+                acked++;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+        producerFactory.destroy();
+
+        // then
+        int total = REQUEST_THREADS * MESSAGES_PER_THREAD;
+        System.out.printf("[%s] %d건 %.0f ms, %.0f msg/s, 평균 ack 지연 %.2f ms%n",
+                profile, total, elapsedNanos / 1e6, total / (elapsedNanos / 1e9), ackLatencyNanos.sum() / 1e6 / total);
+        assertThat(acked).isEqualTo(total);
+    }
+
+    private static CouponDto.IssueMessage message(int thread, int sequence) {
+        return CouponDto.IssueMessage.builder()
+                .ticketId(thread + "-" + sequence)
+                .policyId((long) (sequence % 3 + 1))
+                .userId((long) sequence)
+                .build();
+    }
+}
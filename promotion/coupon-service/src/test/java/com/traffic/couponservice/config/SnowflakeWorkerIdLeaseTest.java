@@ -0,0 +1,117 @@
+package com.traffic.couponservice.config;
+
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class SnowflakeWorkerIdLeaseTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RBucket<Object> takenBucket;
+
+    @Mock
+    private RBucket<Object> freeBucket;
+
+    @Mock
+    private RScript script;
+
+    private SnowflakeWorkerIdLease workerIdLease;
+
+    @BeforeEach
+    void setUp() {
+        workerIdLease = new SnowflakeWorkerIdLease(redissonClient);
+        ReflectionTestUtils.setField(workerIdLease, "ttlSeconds", 30L);
+    }
+
+    @Test
+    @DisplayName("다른 노드가 임대한 워커 ID 는 건너뛰고 다음 빈 워커 ID 를 임대")
+    void acquire_skipsTakenWorkerId() {
+        // given
+        given(redissonClient.getBucket(eq("snowflake:worker:1023"), any(Codec.class))).willReturn(takenBucket);
+        given(redissonClient.getBucket(eq("snowflake:worker:0"), any(Codec.class))).willReturn(freeBucket);
+        given(takenBucket.setIfAbsent(anyString(), any(Duration.class))).willReturn(false);
+        given(freeBucket.setIfAbsent(anyString(), any(Duration.class))).willReturn(true);
+
+        // when
+        SnowflakeIdGenerator generator = workerIdLease.acquire(SnowflakeIdGenerator.MAX_WORKER_ID);
+
+        // then
+        assertThat(generator.getWorkerId()).isZero();
+        assertThat(SnowflakeIdGenerator.extractWorkerId(generator.nextId())).isZero();
+    }
+
+    @Test
+    @DisplayName("임대할 워커 ID 가 없으면 기동 실패")
+    void acquire_noWorkerIdAvailable() {
+        // given
+        given(redissonClient.getBucket(anyString(), any(Codec.class))).willReturn(takenBucket);
+        given(takenBucket.setIfAbsent(anyString(), any(Duration.class))).willReturn(false);
+
+        // when & then
+        assertThatThrownBy(() -> workerIdLease.acquire(0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("임대를 다른 노드가 가져가면 연장하지 않고 임대 만료 이후 ID 생성 중단")
+    void renew_lostLease() {
+        // given
+        given(redissonClient.getBucket(eq("snowflake:worker:5"), any(Codec.class))).willReturn(freeBucket);
+        given(freeBucket.setIfAbsent(anyString(), any(Duration.class))).willReturn(true);
+        SnowflakeIdGenerator generator = workerIdLease.acquire(5);
+        generator.extendLease(System.nanoTime() - 1);   // 연장하지 못한 채 TTL 이 지남
+        given(redissonClient.getScript(any(Codec.class))).willReturn(script);
+        given(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(), any()))
+                .willReturn(0L);
+
+        // when
+        workerIdLease.renew();
+
+        // then
+        assertThatThrownBy(generator::nextId)
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("임대를 연장하면 ID 생성 재개")
+    void renew_extendsLease() {
+        // given
+        given(redissonClient.getBucket(eq("snowflake:worker:5"), any(Codec.class))).willReturn(freeBucket);
+        given(freeBucket.setIfAbsent(anyString(), any(Duration.class))).willReturn(true);
+        SnowflakeIdGenerator generator = workerIdLease.acquire(5);
+        generator.extendLease(System.nanoTime() - 1);
+        given(redissonClient.getScript(any(Codec.class))).willReturn(script);
+        given(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), eq(List.<Object>of("snowflake:worker:5")), any(), any()))
+                .willReturn(1L);
+
+        // when
+        workerIdLease.renew();
+
+        // then
+        assertThat(SnowflakeIdGenerator.extractWorkerId(generator.nextId())).isEqualTo(5);
+    }
+}
@@ -0,0 +1,73 @@
+package com.traffic.couponservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.dto.v1.CouponDto;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionedSmileCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final VersionedSmileCodec codec = new VersionedSmileCodec(CouponDto.Response.class, objectMapper);
+
+    @Test
+    @DisplayName("저장한 쿠폰 상태를 그대로 읽음")
+    void roundTrip() throws Exception {
+        // given
+        CouponDto.Response response = CouponDto.Response.builder()
+                .id(1L)
+                .userId(7L)
+                .couponCode("ABCDEFGHJKMNPQ")
+                .validUntil(LocalDateTime.of(2025, 3, 31, 23, 59))
+                .status(Coupon.Status.AVAILABLE)
+                .build();
+
+        // when
+        ByteBuf encoded = codec.getValueEncoder().encode(response);
+        CouponDto.Response decoded = (CouponDto.Response) codec.getValueDecoder().decode(encoded, null);
+
+        // then
+        assertThat(decoded.getId()).isEqualTo(1L);
+        assertThat(decoded.getCouponCode()).isEqualTo("ABCDEFGHJKMNPQ");
+        assertThat(decoded.getValidUntil()).isEqualTo(LocalDateTime.of(2025, 3, 31, 23, 59));
+        assertThat(decoded.getStatus()).isEqualTo(Coupon.Status.AVAILABLE);
+    }
+
+    @Test
+    @DisplayName("이전 방식(JSON 문자열)으로 저장된 값은 캐시 미스(null)로 처리")
+    void legacyJson() throws Exception {
+        // given
+        ByteBuf legacy = Unpooled.copiedBuffer("{\"id\":1,\"userId\":7}", StandardCharsets.UTF_8);
+
+        // when
+        Object decoded = codec.getValueDecoder().decode(legacy, null);
+
+        // then
+        assertThat(decoded).isNull();
+    }
+
+    @Test
+    @DisplayName("새 버전에서 추가된 필드가 있어도 아는 필드만 읽음")
+    void unknownField() throws Exception {
+        // given
+        VersionedSmileCodec mapCodec = new VersionedSmileCodec(Map.class, objectMapper);
+        ByteBuf encoded = mapCodec.getValueEncoder().encode(Map.of("id", 1, "userId", 7, "newField", "x"));
+
+        // when
+        CouponDto.Response decoded = (CouponDto.Response) codec.getValueDecoder().decode(encoded, null);
+
+        // then
+        assertThat(decoded.getId()).isEqualTo(1L);
+        assertThat(decoded.getUserId()).isEqualTo(7L);
+    }
+}
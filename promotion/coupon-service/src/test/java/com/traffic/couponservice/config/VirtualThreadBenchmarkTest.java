@@ -0,0 +1,212 @@
+package com.traffic.couponservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 가상 스레드 사용 여부에 따른 발급 요청 처리 비교 (./gradlew :coupon-service:benchmarkTest)
+ * v2 lock 모드 발급 흐름을 Redis 없이 재현: 정책별 락 tryLock(대기 제한) -> 수량 차감 UPDATE -> 쿠폰 INSERT
+ * - 락 : Redisson RLock 대신 정책별 ReentrantLock, 대기 시간을 넘기면 503 (CouponRedisService 의 LOCK_WAIT_TIME)
+ * - DB : H2 + HikariCP (커넥션 풀 크기 제한), 커넥션을 잡은 동안 네트워크 왕복 시간만큼 대기, 풀 대기 시간을 넘기면 503
+ * Tomcat 스레드 수보다 많은 요청을 동시에 보내 처리량, p50/p99 지연 시간, 실패 수, 커넥션 대기 스레드 수를 측정
+ * 가상 스레드는 커넥션 풀과 락 앞에서 줄을 서므로 처리량은 풀 크기를 넘지 못함 (요청 스레드 수 대신 풀 / 락이 병목)
+ * JDBC 드라이버의 synchronized 구간에서 캐리어 스레드가 고정(pinning)되는지는 -Djdk.tracePinnedThreads=full 로 확인
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmarkTest {
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int CONCURRENT_REQUESTS = 1_000;
+    private static final int TOTAL_REQUESTS = 10_000;
+    private static final int POLICY_COUNT = 10;
+    private static final int POOL_SIZE = 20;
+    private static final long POOL_TIMEOUT_MILLIS = 3_000;
+    private static final long LOCK_WAIT_MILLIS = 3_000;
+    private static final long LOCK_HOLD_MILLIS = 2;         // 락을 잡은 동안의 Redis 왕복 (정책 조회 + 수량 차감)
+    private static final long DB_ROUND_TRIP_MILLIS = 10;    // 커넥션을 잡은 동안의 DB 왕복
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+    private static final AtomicInteger maxAwaitingConnection = new AtomicInteger();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    @DisplayName("가상 스레드 사용 여부별 처리량, p99 지연 시간, 락 / 커넥션 풀 대기")
+    void issueRequests(boolean virtualThreads) throws Exception {
+        inFlight.set(0);
+        maxInFlight.set(0);
+        maxAwaitingConnection.set(0);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .properties(
+                        "spring.config.name=virtual-thread-benchmark",     // application.yml(Redis, Kafka 등) 을 읽지 않음
+                        "server.port=0",
+                        "server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+                        "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "spring.datasource.hikari.connection-timeout=" + POOL_TIMEOUT_MILLIS)
+                .run();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            String baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/issue?policyId=";
+            HttpClient httpClient = HttpClient.newBuilder().executor(clients).build();
+            Semaphore concurrency = new Semaphore(CONCURRENT_REQUESTS);
+            Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+
+            // when
+            List<Future<Long>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < TOTAL_REQUESTS; i++) {
+                concurrency.acquire();
+                URI uri = URI.create(baseUri + (i % POLICY_COUNT));
+                results.add(clients.submit(() -> {
+                    try {
+                        long sentAt = System.nanoTime();
+                        HttpResponse<String> response = httpClient.send(
+                                HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                                HttpResponse.BodyHandlers.ofString());
+                        statuses.computeIfAbsent(response.statusCode(), status -> new AtomicInteger()).incrementAndGet();
+                        return System.nanoTime() - sentAt;
+                    } finally {
+                        concurrency.release();
+                    }
+                }));
+            }
+            List<Long> latencies = new ArrayList<>();
+            for (Future<Long> result : results) {
+                latencies.add(result.get());
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            // then
+            Collections.sort(latencies);
+            long p99 = latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+            int issued = context.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM bench_coupon", Integer.class);
+            System.out.printf("[virtualThreads=%s] %d건 %.0f ms, %.0f req/s, 발급 %d, 응답 %s, 최대 동시 처리 %d, 최대 커넥션 대기 %d, p50 %.1f ms, p99 %.1f ms%n",
+                    virtualThreads, TOTAL_REQUESTS, elapsedNanos / 1e6, TOTAL_REQUESTS / (elapsedNanos / 1e9), issued, statuses,
+                    maxInFlight.get(), maxAwaitingConnection.get(), latencies.get(latencies.size() / 2) / 1e6, p99 / 1e6);
+            assertThat(latencies).hasSize(TOTAL_REQUESTS);
+            assertThat(issued).isEqualTo(statuses.getOrDefault(200, new AtomicInteger()).get());
+        }
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,      // 가상 스레드 Tomcat 실행기 설정
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            DataSourceAutoConfiguration.class,                              // HikariCP
+            JdbcTemplateAutoConfiguration.class
+    })
+    @Import(IssueController.class)
+    static class BenchmarkApplication {
+    }
+
+    @RestController
+    static class IssueController {
+        private final JdbcTemplate jdbcTemplate;
+        private final HikariDataSource dataSource;
+        private final ReentrantLock[] policyLocks = new ReentrantLock[POLICY_COUNT];
+
+        IssueController(JdbcTemplate jdbcTemplate, HikariDataSource dataSource) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.dataSource = dataSource;
+        }
+
+        @PostConstruct
+        void init() {
+            jdbcTemplate.execute("CREATE TABLE bench_policy (id BIGINT PRIMARY KEY, remaining INT NOT NULL)");
+            jdbcTemplate.execute("CREATE TABLE bench_coupon (id BIGINT AUTO_INCREMENT PRIMARY KEY, policy_id BIGINT NOT NULL)");
+            for (int policyId = 0; policyId < POLICY_COUNT; policyId++) {
+                jdbcTemplate.update("INSERT INTO bench_policy VALUES (?, ?)", policyId, TOTAL_REQUESTS);
+                policyLocks[policyId] = new ReentrantLock();
+            }
+        }
+
+        @PostMapping("/issue")
+        public ResponseEntity<String> issue(@RequestParam int policyId) throws InterruptedException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                ReentrantLock lock = policyLocks[policyId];
+                if (!lock.tryLock(LOCK_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return ResponseEntity.status(503).body("lock");
+                }
+                try {
+                    Thread.sleep(LOCK_HOLD_MILLIS);
+                    if (withConnection("UPDATE bench_policy SET remaining = remaining - 1 WHERE id = ? AND remaining > 0", policyId) == 0) {
+                        return ResponseEntity.status(409).body("sold out");
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                withConnection("INSERT INTO bench_coupon (policy_id) VALUES (?)", policyId);
+                return ResponseEntity.ok("ok");
+            } catch (DataAccessException e) {
+                return ResponseEntity.status(503).body("pool");       // 커넥션 풀 대기 시간 초과
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        // 커넥션을 잡은 채로 DB 왕복 시간만큼 대기한 뒤 실행
+        private int withConnection(String sql, int policyId) {
+            maxAwaitingConnection.accumulateAndGet(dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection(), Math::max);
+            return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                try {
+                    Thread.sleep(DB_ROUND_TRIP_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, policyId);
+                    return statement.executeUpdate();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.traffic.couponservice.domain.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    @DisplayName("ID 생성 - 증가 순서 및 워커 ID, 생성 시각 기록")
+    void nextId_Monotonic() {
+        // given
+        long now = System.currentTimeMillis();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+
+        // when
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        // then
+        assertThat(second).isGreaterThan(first);
+        assertThat(SnowflakeIdGenerator.extractWorkerId(first)).isEqualTo(7);
+        assertThat(SnowflakeIdGenerator.extractTimestamp(first)).isBetween(now, System.currentTimeMillis());
+    }
+
+    @Test
+    @DisplayName("ID 생성 - 여러 스레드에서 동시에 생성해도 중복 없음")
+    void nextId_Concurrent() throws InterruptedException {
+        // given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(ids).hasSize(80_000);
+    }
+
+    @Test
+    @DisplayName("ID 생성 - 같은 ms 의 시퀀스를 모두 사용하면 다음 ms 까지 대기")
+    void nextId_SequenceOverflow() {
+        // given
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock::get);
+        for (int i = 0; i < 4096; i++) {
+            generator.nextId();
+        }
+
+        // when
+        clock.incrementAndGet();
+        long next = generator.nextId();
+
+        // then
+        assertThat(SnowflakeIdGenerator.extractTimestamp(next)).isEqualTo(SnowflakeIdGenerator.EPOCH + 1001);
+    }
+
+    @Test
+    @DisplayName("ID 생성 실패 - 시스템 시계가 크게 뒤로 이동")
+    void nextId_ClockMovedBackwards() {
+        // given
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock::get);
+        generator.nextId();
+
+        // when
+        clock.addAndGet(-1000);
+
+        // then
+        assertThatThrownBy(generator::nextId)
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("시각 기준 최소 ID - 그 시각 이후 생성된 ID 는 모두 크거나 같음")
+    void firstIdAt() {
+        // given
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 5000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID, clock::get);
+        long before = generator.nextId();
+        clock.incrementAndGet();
+
+        // when
+        long boundary = SnowflakeIdGenerator.firstIdAt(clock.get());
+
+        // then
+        assertThat(before).isLessThan(boundary);
+        assertThat(generator.nextId()).isGreaterThanOrEqualTo(boundary);
+        assertThat(SnowflakeIdGenerator.extractTimestamp(boundary)).isEqualTo(clock.get());
+    }
+
+    @Test
+    @DisplayName("ID 생성 실패 - 워커 ID 임대가 만료되면 생성 중단, 연장하면 다시 생성")
+    void nextId_LeaseExpired() {
+        // given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        generator.extendLease(System.nanoTime() - 1);
+
+        // when & then
+        assertThatThrownBy(generator::nextId)
+                .isInstanceOf(IllegalStateException.class);
+        generator.extendLease(System.nanoTime() + TimeUnit.SECONDS.toNanos(30));
+        assertThat(SnowflakeIdGenerator.extractWorkerId(generator.nextId())).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("생성기 생성 실패 - 범위를 벗어난 워커 ID")
+    void constructor_InvalidWorkerId() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,59 @@
+package com.traffic.couponservice.service;
+
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CouponCodeGeneratorTest {
+
+    private final CouponCodeGenerator couponCodeGenerator = new CouponCodeGenerator(new SnowflakeIdGenerator(1));
+
+    @Test
+    @DisplayName("쿠폰 코드 생성 - 14자리 Base32 + 검증 문자")
+    void generate_Format() {
+        // when
+        String code = couponCodeGenerator.generate();
+
+        // then
+        assertThat(code).hasSize(CouponCodeGenerator.CODE_LENGTH);
+        assertThat(code).matches("[0-9A-HJKMNP-TV-Z]+");
+        assertThat(CouponCodeGenerator.isValid(code)).isTrue();
+        assertThat(CouponCodeGenerator.isValid(code.toLowerCase())).isTrue();
+    }
+
+    @Test
+    @DisplayName("쿠폰 코드 생성 - 대량 생성 시 중복 없음")
+    void generate_Unique() {
+        // given
+        Set<String> codes = new HashSet<>();
+
+        // when
+        for (int i = 0; i < 200_000; i++) {
+            codes.add(couponCodeGenerator.generate());
+        }
+
+        // then
+        assertThat(codes).hasSize(200_000);
+    }
+
+    @Test
+    @DisplayName("쿠폰 코드 검증 - 한 글자 오타 검출")
+    void isValid_SingleCharacterTypo() {
+        // given
+        String code = couponCodeGenerator.generate();
+        char replacement = code.charAt(5) == 'X' ? 'Y' : 'X';
+
+        // when
+        String typo = code.substring(0, 5) + replacement + code.substring(6);
+
+        // then
+        assertThat(CouponCodeGenerator.isValid(typo)).isFalse();
+        assertThat(CouponCodeGenerator.isValid(code.substring(1))).isFalse();
+        assertThat(CouponCodeGenerator.isValid(null)).isFalse();
+    }
+}
@@ -0,0 +1,99 @@
+package com.traffic.couponservice.service.v1;
+
+import com.traffic.couponservice.repository.CouponPolicyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponIssuedQuantityBackfillTest {
+
+    @Mock
+    private CouponPolicyRepository couponPolicyRepository;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RBucket<String> doneBucket;
+
+    @Mock
+    private RLock lock;
+
+    private CouponIssuedQuantityBackfill couponIssuedQuantityBackfill;
+
+    @BeforeEach
+    void setUp() {
+        couponIssuedQuantityBackfill = new CouponIssuedQuantityBackfill(couponPolicyRepository, redissonClient);
+        ReflectionTestUtils.setField(couponIssuedQuantityBackfill, "lockLeaseSeconds", 300L);
+        given(redissonClient.<String>getBucket(eq(CouponIssuedQuantityBackfill.BACKFILL_DONE_KEY), any(Codec.class))).willReturn(doneBucket);
+    }
+
+    @Test
+    @DisplayName("보정이 끝난 뒤 기동하면 COUNT 하지 않음")
+    void backfill_alreadyDone() {
+        // given
+        given(doneBucket.isExists()).willReturn(true);
+
+        // when
+        couponIssuedQuantityBackfill.backfill();
+
+        // then
+        verify(redissonClient, never()).getLock(anyString());
+        verify(couponPolicyRepository, never()).syncIssuedQuantityWithCouponCount(any());
+    }
+
+    @Test
+    @DisplayName("락을 얻은 노드만 보정하고 완료 키를 남김")
+    void backfill_firstBoot() throws InterruptedException {
+        // given
+        given(doneBucket.isExists()).willReturn(false);
+        given(redissonClient.getLock("coupon:v1:backfill:lock")).willReturn(lock);
+        given(lock.tryLock(0, 300L, TimeUnit.SECONDS)).willReturn(true);
+        given(lock.isHeldByCurrentThread()).willReturn(true);
+        given(couponPolicyRepository.syncIssuedQuantityWithCouponCount(any(LocalDateTime.class))).willReturn(2);
+
+        // when
+        couponIssuedQuantityBackfill.backfill();
+
+        // then
+        verify(couponPolicyRepository).syncIssuedQuantityWithCouponCount(any(LocalDateTime.class));
+        verify(doneBucket).set(anyString());
+        verify(lock).unlock();
+    }
+
+    @Test
+    @DisplayName("다른 노드가 보정 중이면 기다리지 않고 건너뜀")
+    void backfill_lockedByOtherNode() throws InterruptedException {
+        // given
+        given(doneBucket.isExists()).willReturn(false);
+        given(redissonClient.getLock("coupon:v1:backfill:lock")).willReturn(lock);
+        given(lock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS))).willReturn(false);
+
+        // when
+        couponIssuedQuantityBackfill.backfill();
+
+        // then
+        verify(couponPolicyRepository, never()).syncIssuedQuantityWithCouponCount(any());
+        verify(doneBucket, never()).set(anyString());
+    }
+}
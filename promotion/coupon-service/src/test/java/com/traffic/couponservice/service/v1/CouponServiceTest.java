@@ -5,20 +5,25 @@ import com.traffic.couponservice.controller.v1.CouponPolicyController;
 import com.traffic.couponservice.domain.Coupon;
 import com.traffic.couponservice.domain.CouponPolicy;
 import com.traffic.couponservice.dto.v1.CouponDto;
+import com.traffic.couponservice.exception.CouponIssueException;
 import com.traffic.couponservice.exception.CouponNotFoundException;
 import com.traffic.couponservice.repository.CouponPolicyRepository;
 import com.traffic.couponservice.repository.CouponRepository;
+import com.traffic.couponservice.service.CouponCodeGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -42,6 +47,9 @@ class CouponServiceTest {
     @Mock
     private CouponPolicyRepository couponPolicyRepository;
 
+    @Mock
+    private CouponCodeGenerator couponCodeGenerator;
+
 
     private CouponPolicy couponPolicy;
     private Coupon coupon;
@@ -175,5 +183,117 @@ class CouponServiceTest {
         }
     }
 
+    @Test
+    @DisplayName("쿠폰 발급 성공 - 조건부 UPDATE 방식은 쿠폰 저장 후 발급 수량을 증가")
+    void issueCoupon_Conditional_Success() {
+        // Given
+        ReflectionTestUtils.setField(couponService, "issueMode", "conditional");
+        CouponDto.IssueRequest request = CouponDto.IssueRequest.builder()
+                .couponPolicyId(1L)
+                .build();
+        when(couponPolicyRepository.findById(1L)).thenReturn(Optional.of(couponPolicy));
+        when(couponRepository.saveAndFlush(any())).thenReturn(coupon);
+        when(couponPolicyRepository.increaseIssuedQuantity(1L)).thenReturn(1);
+
+        try (MockedStatic<UserIdInterceptor> mockedStatic = mockStatic(UserIdInterceptor.class)) {
+            mockedStatic.when(UserIdInterceptor::getCurrentUserId).thenReturn(TEST_USER_ID);
+
+            // When
+            Coupon issued = couponService.issueCoupon(request);
+
+            // Then
+            assertThat(issued.getId()).isEqualTo(TEST_COUPON_ID);
+            InOrder inOrder = inOrder(couponRepository, couponPolicyRepository);
+            inOrder.verify(couponRepository).saveAndFlush(any());
+            inOrder.verify(couponPolicyRepository).increaseIssuedQuantity(1L);
+            verify(couponPolicyRepository, never()).findByIdWithLock(any());
+            verify(couponRepository, never()).countByCouponPolicyId(any());
+        }
+    }
+
+    @Test
+    @DisplayName("쿠폰 발급 실패 - 조건부 UPDATE 방식에서 갱신된 행이 없으면 소진")
+    void issueCoupon_Conditional_SoldOut() {
+        // Given
+        ReflectionTestUtils.setField(couponService, "issueMode", "conditional");
+        CouponDto.IssueRequest request = CouponDto.IssueRequest.builder()
+                .couponPolicyId(1L)
+                .build();
+        when(couponPolicyRepository.findById(1L)).thenReturn(Optional.of(couponPolicy));
+        when(couponRepository.saveAndFlush(any())).thenReturn(coupon);
+        when(couponPolicyRepository.increaseIssuedQuantity(1L)).thenReturn(0);
+
+        try (MockedStatic<UserIdInterceptor> mockedStatic = mockStatic(UserIdInterceptor.class)) {
+            mockedStatic.when(UserIdInterceptor::getCurrentUserId).thenReturn(TEST_USER_ID);
+
+            // When & Then
+            assertThatThrownBy(() -> couponService.issueCoupon(request))
+                    .isInstanceOf(CouponIssueException.class)
+                    .hasMessage("쿠폰이 모두 소진되었습니다.");
+        }
+    }
+
+    @Test
+    @DisplayName("쿠폰 발급 실패 - 조건부 UPDATE 방식에서 조회한 발급 수량이 이미 총 수량이면 저장하지 않고 거절")
+    void issueCoupon_Conditional_SoldOutBeforeInsert() {
+        // Given
+        ReflectionTestUtils.setField(couponService, "issueMode", "conditional");
+        CouponDto.IssueRequest request = CouponDto.IssueRequest.builder()
+                .couponPolicyId(1L)
+                .build();
+        CouponPolicy soldOut = CouponPolicy.builder()
+                .id(1L)
+                .totalQuantity(100)
+                .issuedQuantity(100)
+                .startTime(LocalDateTime.now().minusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .build();
+        when(couponPolicyRepository.findById(1L)).thenReturn(Optional.of(soldOut));
+
+        // When & Then
+        assertThatThrownBy(() -> couponService.issueCoupon(request))
+                .isInstanceOf(CouponIssueException.class)
+                .hasMessage("쿠폰이 모두 소진되었습니다.");
+        verify(couponRepository, never()).saveAndFlush(any());
+        verify(couponPolicyRepository, never()).increaseIssuedQuantity(any());
+    }
+
+    @Test
+    @DisplayName("쿠폰함 커서 조회 - 다음 페이지가 있으면 마지막 쿠폰 위치를 커서로 반환하고 그 이후부터 조회")
+    void getCouponsByCursor_NextPage() {
+        // Given - created_at 이 없는(이전에 저장된) 쿠폰도 커서를 만들 수 있음
+        Coupon older = Coupon.builder()
+                .id(0L)
+                .userId(TEST_USER_ID)
+                .couponPolicy(couponPolicy)
+                .couponCode("TEST000")
+                .build();
+        when(couponRepository.findWalletFirstPage(TEST_USER_ID, Coupon.Status.AVAILABLE, Limit.of(2)))
+                .thenReturn(List.of(coupon, older));
+
+        try (MockedStatic<UserIdInterceptor> mockedStatic = mockStatic(UserIdInterceptor.class)) {
+            mockedStatic.when(UserIdInterceptor::getCurrentUserId).thenReturn(TEST_USER_ID);
+
+            // When
+            CouponDto.CursorResponse first = couponService.getCouponsByCursor(Coupon.Status.AVAILABLE, null, 1);
+            couponService.getCouponsByCursor(Coupon.Status.AVAILABLE, first.getNextCursor(), 1);
+
+            // Then
+            assertEquals(1, first.getCoupons().size());
+            assertNotNull(first.getNextCursor());
+            verify(couponRepository).findWalletPageAfter(TEST_USER_ID, Coupon.Status.AVAILABLE, TEST_COUPON_ID, Limit.of(2));
+        }
+    }
+
+    @Test
+    @DisplayName("쿠폰함 커서 조회 실패 - 잘못된 커서")
+    void getCouponsByCursor_Fail_InvalidCursor() {
+        try (MockedStatic<UserIdInterceptor> mockedStatic = mockStatic(UserIdInterceptor.class)) {
+            mockedStatic.when(UserIdInterceptor::getCurrentUserId).thenReturn(TEST_USER_ID);
 
-}
\ No newline at end of file
+            // When & Then
+            assertThatThrownBy(() -> couponService.getCouponsByCursor(Coupon.Status.AVAILABLE, "not-a-cursor", 10))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
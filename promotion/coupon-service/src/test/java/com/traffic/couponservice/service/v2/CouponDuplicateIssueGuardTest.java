@@ -0,0 +1,128 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
+import com.traffic.couponservice.exception.CouponIssueException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBitSet;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponDuplicateIssueGuardTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RBitSet bitSet;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponDuplicateIssueGuard couponDuplicateIssueGuard;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        couponDuplicateIssueGuard = new CouponDuplicateIssueGuard(redissonClient, meterRegistry);
+        ReflectionTestUtils.setField(couponDuplicateIssueGuard, "maxUserId", 1_000_000L);
+        couponDuplicateIssueGuard.init();
+    }
+
+    private CouponPolicySnapshot policy(Long id, LocalDateTime endTime) {
+        return CouponPolicySnapshot.of(CouponPolicy.builder()
+                .id(id)
+                .startTime(endTime.minusDays(2))
+                .endTime(endTime)
+                .build());
+    }
+
+    @Test
+    @DisplayName("처음 발급받는 유저는 비트를 기록하고 통과")
+    void markIssued_firstIssue() {
+        // given
+        given(redissonClient.getBitSet("coupon:issued:1")).willReturn(bitSet);
+        given(bitSet.set(7L)).willReturn(false);
+
+        // when
+        couponDuplicateIssueGuard.markIssued(policy(1L, LocalDateTime.now().plusDays(1)), 7L);
+
+        // then
+        verify(bitSet).set(7L);
+    }
+
+    @Test
+    @DisplayName("이미 발급받은 유저는 예외")
+    void markIssued_duplicate() {
+        // given
+        given(redissonClient.getBitSet("coupon:issued:1")).willReturn(bitSet);
+        given(bitSet.set(7L)).willReturn(true);
+
+        // when & then
+        assertThatThrownBy(() -> couponDuplicateIssueGuard.markIssued(policy(1L, LocalDateTime.now().plusDays(1)), 7L))
+                .isInstanceOf(CouponIssueException.class);
+    }
+
+    @Test
+    @DisplayName("유효하지 않은 사용자 ID 는 비트맵에 기록하지 않음")
+    void markIssued_invalidUserId() {
+        assertThatThrownBy(() -> couponDuplicateIssueGuard.markIssued(policy(1L, LocalDateTime.now().plusDays(1)), -1L))
+                .isInstanceOf(CouponIssueException.class);
+        verify(redissonClient, never()).getBitSet("coupon:issued:1");
+    }
+
+    @Test
+    @DisplayName("userId 상한을 넘는 요청은 비트맵을 키우지 않도록 거절하고 정책당 최대 크기를 노출")
+    void markIssued_aboveMaxUserId() {
+        assertThatThrownBy(() -> couponDuplicateIssueGuard.markIssued(policy(1L, LocalDateTime.now().plusDays(1)), 1_000_001L))
+                .isInstanceOf(CouponIssueException.class);
+        verify(redissonClient, never()).getBitSet("coupon:issued:1");
+        assertThat(meterRegistry.get("coupon.issued.guard.bytes.max").gauge().value()).isEqualTo(125_001);
+    }
+
+    @Test
+    @DisplayName("발급 취소 시 비트를 지워 다시 발급받을 수 있음")
+    void release() {
+        // given
+        given(redissonClient.getBitSet("coupon:issued:1")).willReturn(bitSet);
+
+        // when
+        couponDuplicateIssueGuard.release(1L, 7L);
+
+        // then
+        verify(bitSet).clear(7L);
+    }
+
+    @Test
+    @DisplayName("발급 기간이 끝난 정책은 메트릭에서 제거")
+    void reportMetrics_dropsEndedPolicies() {
+        // given
+        given(redissonClient.getBitSet("coupon:issued:1")).willReturn(bitSet);
+        given(bitSet.size()).willReturn(64L);
+        given(bitSet.cardinality()).willReturn(3L);
+        couponDuplicateIssueGuard.registerMetrics(policy(1L, LocalDateTime.now().plusDays(1)));
+        couponDuplicateIssueGuard.registerMetrics(policy(2L, LocalDateTime.now().minusMinutes(1)));
+
+        // when
+        couponDuplicateIssueGuard.reportMetrics();
+
+        // then
+        assertThat(meterRegistry.get("coupon.issued.guard.users").gauges()).hasSize(1);
+        assertThat(meterRegistry.get("coupon.issued.guard.users").tag("policyId", "1").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("coupon.issued.guard.bytes").tag("policyId", "1").gauge().value()).isEqualTo(8);
+        verify(redissonClient, never()).getBitSet("coupon:issued:2");
+    }
+}
@@ -0,0 +1,118 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.repository.CouponPolicyRepository;
+import com.traffic.couponservice.repository.CouponRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class CouponExpirySweeperTest {
+
+    @Mock
+    private CouponPolicyRepository couponPolicyRepository;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private CouponStateService couponStateService;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock lock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponExpirySweeper couponExpirySweeper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        couponExpirySweeper = new CouponExpirySweeper(couponPolicyRepository, couponRepository, couponStateService,
+                redissonClient, meterRegistry);
+        ReflectionTestUtils.setField(couponExpirySweeper, "lookbackDays", 7L);
+        ReflectionTestUtils.setField(couponExpirySweeper, "batchSize", 2);
+        ReflectionTestUtils.setField(couponExpirySweeper, "maxBatchesPerRun", 2);
+        ReflectionTestUtils.setField(couponExpirySweeper, "pauseMillis", 0L);
+        ReflectionTestUtils.setField(couponExpirySweeper, "lockLeaseSeconds", 300L);
+        couponExpirySweeper.init();
+        given(redissonClient.getLock("coupon:expiry:lock")).willReturn(lock);
+    }
+
+    @Test
+    @DisplayName("종료된 정책의 쿠폰을 배치 단위로 만료 처리하고 상태 캐시 삭제")
+    void sweep_expiresInBatches() throws Exception {
+        // given
+        given(lock.tryLock(0, 300L, TimeUnit.SECONDS)).willReturn(true);
+        given(lock.isHeldByCurrentThread()).willReturn(true);
+        given(couponPolicyRepository.findIdsByEndTimeBetween(any(), any())).willReturn(List.of(1L));
+        given(couponRepository.findIdsByCouponPolicyIdAndStatusIn(eq(1L), any(), any(Limit.class)))
+                .willReturn(List.of(10L, 11L))
+                .willReturn(List.of(12L));
+        given(couponRepository.expireByIdIn(eq(List.of(10L, 11L)), any())).willReturn(2);
+        given(couponRepository.expireByIdIn(eq(List.of(12L)), any())).willReturn(1);
+
+        // when
+        couponExpirySweeper.sweep();
+
+        // then
+        verify(couponStateService).evictCouponStates(List.of(10L, 11L));
+        verify(couponStateService).evictCouponStates(List.of(12L));
+        assertThat(meterRegistry.get("coupon.expiry.expired").counter().count()).isEqualTo(3);
+        verify(lock).unlock();
+    }
+
+    @Test
+    @DisplayName("주기당 최대 배치 수를 넘으면 나머지는 다음 주기에 처리")
+    void sweep_maxBatchesPerRun() throws Exception {
+        // given
+        given(lock.tryLock(0, 300L, TimeUnit.SECONDS)).willReturn(true);
+        given(couponPolicyRepository.findIdsByEndTimeBetween(any(), any())).willReturn(List.of(1L, 2L));
+        given(couponRepository.findIdsByCouponPolicyIdAndStatusIn(eq(1L), any(), any(Limit.class)))
+                .willReturn(List.of(10L, 11L));
+        given(couponRepository.expireByIdIn(any(), any())).willReturn(2);
+
+        // when
+        couponExpirySweeper.sweep();
+
+        // then
+        verify(couponRepository, times(2)).expireByIdIn(any(), any());
+        verify(couponRepository, never()).findIdsByCouponPolicyIdAndStatusIn(eq(2L), any(), any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("다른 노드가 실행 중이면 건너뜀")
+    void sweep_lockedByOtherNode() throws Exception {
+        // given
+        given(lock.tryLock(0, 300L, TimeUnit.SECONDS)).willReturn(false);
+
+        // when
+        couponExpirySweeper.sweep();
+
+        // then
+        verifyNoInteractions(couponPolicyRepository, couponRepository, couponStateService);
+        verify(lock, never()).unlock();
+    }
+}
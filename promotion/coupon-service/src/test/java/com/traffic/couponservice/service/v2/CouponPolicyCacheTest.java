@@ -0,0 +1,103 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponPolicyCacheTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic rTopic;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponPolicyCache couponPolicyCache;
+
+    private static final Long POLICY_ID = 1L;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 10, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 1, 11, 0);
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, CouponPolicy> loader = id -> {
+        loads.incrementAndGet();
+        return CouponPolicy.builder()
+                .id(id)
+                .startTime(START)
+                .endTime(END)
+                .build();
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        couponPolicyCache = new CouponPolicyCache(redissonClient, meterRegistry, 100, 300);
+    }
+
+    @Test
+    @DisplayName("한 번 읽은 정책은 Redis/DB 조회 없이 로컬 캐시에서 반환")
+    void get_cachesSnapshot() {
+        // when
+        CouponPolicySnapshot first = couponPolicyCache.get(POLICY_ID, loader);
+        CouponPolicySnapshot second = couponPolicyCache.get(POLICY_ID, loader);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("정책이 변경되면 캐시를 비우고 다른 노드에 무효화 메시지 전송")
+    void invalidate_reloadsAndPublishes() {
+        // given
+        given(redissonClient.getTopic(anyString(), any(Codec.class))).willReturn(rTopic);
+        couponPolicyCache.get(POLICY_ID, loader);
+
+        // when
+        couponPolicyCache.invalidate(POLICY_ID);
+        couponPolicyCache.get(POLICY_ID, loader);
+
+        // then
+        assertThat(loads.get()).isEqualTo(2);
+        verify(rTopic).publish(String.valueOf(POLICY_ID));
+    }
+
+    @Test
+    @DisplayName("스냅샷의 발급 기간은 시작/종료 시각을 포함")
+    void snapshot_issuePeriod() {
+        // given
+        CouponPolicySnapshot snapshot = couponPolicyCache.get(POLICY_ID, loader);
+        long start = START.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long end = END.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        // then
+        assertThat(snapshot.isInIssuePeriod(start - 1)).isFalse();
+        assertThat(snapshot.isInIssuePeriod(start)).isTrue();
+        assertThat(snapshot.isInIssuePeriod(end)).isTrue();
+        assertThat(snapshot.isInIssuePeriod(end + 1)).isFalse();
+    }
+}
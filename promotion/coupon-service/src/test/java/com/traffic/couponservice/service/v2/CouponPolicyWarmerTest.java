@@ -0,0 +1,203 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.config.CouponRedisCodecs;
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.repository.CouponPolicyRepository;
+import com.traffic.couponservice.repository.CouponRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.BatchResult;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBitSetAsync;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class CouponPolicyWarmerTest {
+
+    @Mock
+    private CouponPolicyRepository couponPolicyRepository;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private CouponRedisCodecs couponRedisCodecs;
+
+    @Mock
+    private CouponSoldOutRegistry couponSoldOutRegistry;
+
+    @Mock
+    private RBatch rBatch;
+
+    @Mock
+    private RBitSetAsync bitSet;
+
+    @Mock
+    private RBucketAsync<Object> policyBucket;
+
+    @Mock
+    private RBucketAsync<Object> quantityBucket;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponPolicyWarmer couponPolicyWarmer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        couponPolicyWarmer = new CouponPolicyWarmer(couponPolicyRepository, couponRepository, redissonClient,
+                couponSoldOutRegistry, couponRedisCodecs, meterRegistry);
+        ReflectionTestUtils.setField(couponPolicyWarmer, "leadSeconds", 600L);
+    }
+
+    private CouponPolicy policy(int totalQuantity) {
+        return CouponPolicy.builder()
+                .id(1L)
+                .name("선착순 쿠폰")
+                .discountType(CouponPolicy.DiscountType.FIXED_AMOUNT)
+                .discountValue(1000)
+                .minimumOrderAmount(10000)
+                .maximumDiscountAmount(1000)
+                .totalQuantity(totalQuantity)
+                .startTime(LocalDateTime.now().minusHours(1))
+                .endTime(LocalDateTime.now().plusHours(1))
+                .build();
+    }
+
+    // 배치 응답은 명령 순서대로 (setAsync 는 null)
+    private static BatchResult<Object> responses(Object... values) {
+        return new BatchResult<>(Arrays.asList(values), 0);
+    }
+
+    private void givenPolicy(int totalQuantity, long issued) {
+        given(couponPolicyRepository.findIssuablePolicies(any(), any())).willReturn(List.of(policy(totalQuantity)));
+        given(couponRepository.countGroupByCouponPolicyIdIn(List.of(1L))).willReturn(List.<Object[]>of(new Object[]{1L, issued}));
+        given(couponRedisCodecs.getCouponPolicyCodec()).willReturn(StringCodec.INSTANCE);
+        given(redissonClient.createBatch(any(BatchOptions.class))).willReturn(rBatch);
+        given(rBatch.getBucket(eq("coupon:policy:1"), any(Codec.class))).willReturn(policyBucket);
+        given(rBatch.getBucket(eq("coupon:quantity:1"), any(Codec.class))).willReturn(quantityBucket);
+    }
+
+    @Test
+    @DisplayName("수량 키가 없으면 발급 유저 비트맵을 복구한 뒤 남은 수량(총 수량 - DB 발급 수량)을 저장")
+    void warmUp_restoresMissingQuantity() {
+        // given
+        givenPolicy(100, 30);
+        given(couponRepository.findIdAndUserIdByCouponPolicyIdAndIdGreaterThan(1L, 0L, Limit.of(10_000)))
+                .willReturn(List.<Object[]>of(new Object[]{100L, 7L}, new Object[]{101L, 9L}));
+        given(rBatch.getBitSet("coupon:issued:1")).willReturn(bitSet);
+        // 정책 워밍업(수량 키 없음, 정책 키 저장) -> 비트맵 복구 -> 수량 키 저장
+        willReturn(responses(false, null), responses(true, true), responses(true)).given(rBatch).execute();
+
+        // when
+        couponPolicyWarmer.warmUp();
+
+        // then
+        verify(policyBucket).setAsync(any());
+        InOrder inOrder = inOrder(bitSet, quantityBucket);
+        inOrder.verify(bitSet).setAsync(7L);
+        inOrder.verify(bitSet).setAsync(9L);
+        inOrder.verify(quantityBucket).setIfAbsentAsync("70");
+        verify(couponSoldOutRegistry, never()).restoreSoldOut(any());
+        assertThat(meterRegistry.get("coupon.policy.warm-up").tag("result", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("발급 유저는 쿠폰 ID 커서로 나눠 읽어 비트맵에 기록")
+    void warmUp_rebuildsBitmapByIdCursor() {
+        // given
+        givenPolicy(100_000, 10_001);
+        List<Object[]> firstPage = LongStream.rangeClosed(1, 10_000)
+                .mapToObj(id -> new Object[]{id, id + 500})
+                .toList();
+        given(couponRepository.findIdAndUserIdByCouponPolicyIdAndIdGreaterThan(1L, 0L, Limit.of(10_000))).willReturn(firstPage);
+        given(couponRepository.findIdAndUserIdByCouponPolicyIdAndIdGreaterThan(1L, 10_000L, Limit.of(10_000)))
+                .willReturn(List.<Object[]>of(new Object[]{10_001L, 7L}));
+        given(rBatch.getBitSet("coupon:issued:1")).willReturn(bitSet);
+        willReturn(responses(false, null), responses(), responses(), responses(true)).given(rBatch).execute();
+
+        // when
+        couponPolicyWarmer.warmUp();
+
+        // then
+        verify(bitSet).setAsync(501L);
+        verify(bitSet).setAsync(10_500L);
+        verify(bitSet).setAsync(7L);
+        verify(couponRepository, never()).findIdAndUserIdByCouponPolicyIdAndIdGreaterThan(1L, 10_001L, Limit.of(10_000));
+        verify(quantityBucket).setIfAbsentAsync("89999");
+    }
+
+    @Test
+    @DisplayName("복구한 수량이 0 이면 소진 Set 에도 다시 기록")
+    void warmUp_restoresSoldOut() {
+        // given
+        givenPolicy(100, 100);
+        given(couponRepository.findIdAndUserIdByCouponPolicyIdAndIdGreaterThan(1L, 0L, Limit.of(10_000))).willReturn(List.of());
+        willReturn(responses(false, null), responses(true)).given(rBatch).execute();
+
+        // when
+        couponPolicyWarmer.warmUp();
+
+        // then
+        verify(quantityBucket).setIfAbsentAsync("0");
+        verify(couponSoldOutRegistry).restoreSoldOut(1L);
+    }
+
+    @Test
+    @DisplayName("수량 키가 이미 있으면 발급 중인 값이므로 비트맵과 수량을 건드리지 않음")
+    void warmUp_keepsExistingQuantity() {
+        // given
+        givenPolicy(100, 30);
+        willReturn(responses(true, null)).given(rBatch).execute();
+
+        // when
+        couponPolicyWarmer.warmUp();
+
+        // then
+        verify(policyBucket).setAsync(any());
+        verify(quantityBucket, never()).setIfAbsentAsync(any());
+        verify(couponRepository, never()).findIdAndUserIdByCouponPolicyIdAndIdGreaterThan(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("워밍업 대상 정책이 없으면 Redis 에 접근하지 않음")
+    void warmUp_noPolicies() {
+        // given
+        given(couponPolicyRepository.findIssuablePolicies(any(), any())).willReturn(List.of());
+
+        // when
+        couponPolicyWarmer.warmUp();
+
+        // then
+        verifyNoInteractions(redissonClient);
+    }
+}
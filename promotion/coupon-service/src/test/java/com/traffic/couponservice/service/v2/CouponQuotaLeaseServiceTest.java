@@ -0,0 +1,114 @@
+package com.traffic.couponservice.service.v2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponQuotaLeaseServiceTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RScript rScript;
+
+    @Mock
+    private RAtomicLong rAtomicLong;
+
+    @Mock
+    private CouponSoldOutRegistry couponSoldOutRegistry;
+
+    private CouponQuotaLeaseService couponQuotaLeaseService;
+
+    private static final Long POLICY_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        couponQuotaLeaseService = new CouponQuotaLeaseService(redissonClient, new SimpleMeterRegistry(), couponSoldOutRegistry);
+        ReflectionTestUtils.setField(couponQuotaLeaseService, "blockSize", 3L);
+        ReflectionTestUtils.setField(couponQuotaLeaseService, "leaseTtlSeconds", 30L);
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+    }
+
+    // Redis에서 임대되는 블록 크기를 순서대로 지정
+    private void leaseWillReturn(Long first, Long... next) {
+        given(rScript.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class)))
+                .willReturn(first, (Object[]) next);
+    }
+
+    @Test
+    @DisplayName("임대한 블록 안에서는 Redis에 접근하지 않고 발급")
+    void tryAcquire_servesFromLocalLease() {
+        // given
+        leaseWillReturn(3L);
+
+        // when
+        boolean first = couponQuotaLeaseService.tryAcquire(POLICY_ID);
+        boolean second = couponQuotaLeaseService.tryAcquire(POLICY_ID);
+        boolean third = couponQuotaLeaseService.tryAcquire(POLICY_ID);
+
+        // then
+        assertThat(List.of(first, second, third)).containsOnly(true);
+        verify(rScript, times(1)).eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Redis 수량이 모두 소진되면 발급 실패")
+    void tryAcquire_soldOut() {
+        // given
+        leaseWillReturn(1L, 0L);
+
+        // when & then
+        assertThat(couponQuotaLeaseService.tryAcquire(POLICY_ID)).isTrue();
+        assertThat(couponQuotaLeaseService.tryAcquire(POLICY_ID)).isFalse();
+        verify(couponSoldOutRegistry).markSoldOut(POLICY_ID);
+    }
+
+    @Test
+    @DisplayName("소진된 정책이어도 이 노드에 임대 수량이 남아 있는 동안은 소진으로 보지 않음")
+    void isSoldOut_untilLocalLeaseUsed() {
+        // given
+        leaseWillReturn(2L);
+        given(couponSoldOutRegistry.isSoldOut(POLICY_ID)).willReturn(false, true);
+        couponQuotaLeaseService.tryAcquire(POLICY_ID);
+
+        // when & then
+        assertThat(couponQuotaLeaseService.isSoldOut(POLICY_ID)).isFalse();
+        assertThat(couponQuotaLeaseService.isSoldOut(POLICY_ID)).isFalse();
+        assertThat(couponQuotaLeaseService.tryAcquire(POLICY_ID)).isTrue();
+        assertThat(couponQuotaLeaseService.isSoldOut(POLICY_ID)).isTrue();
+    }
+
+    @Test
+    @DisplayName("서버 종료 시 미사용 임대 수량을 Redis로 반환")
+    void returnAllLeases_returnsUnusedQuantity() {
+        // given
+        leaseWillReturn(3L);
+        given(redissonClient.getAtomicLong("coupon:quantity:" + POLICY_ID)).willReturn(rAtomicLong);
+        couponQuotaLeaseService.tryAcquire(POLICY_ID);
+
+        // when
+        couponQuotaLeaseService.returnAllLeases();
+
+        // then
+        verify(rAtomicLong).addAndGet(2L);
+    }
+}
@@ -0,0 +1,118 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.config.UserIdInterceptor;
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.CouponPolicySnapshot;
+import com.traffic.couponservice.dto.v1.CouponDto;
+import com.traffic.couponservice.repository.CouponRepository;
+import com.traffic.couponservice.service.CouponCodeGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponRedisServiceTest {
+
+    @InjectMocks
+    private CouponRedisService couponRedisService;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private CouponPolicyService couponPolicyService;
+
+    @Mock
+    private CouponIssueScriptService couponIssueScriptService;
+
+    @Mock
+    private CouponQuotaLeaseService couponQuotaLeaseService;
+
+    @Mock
+    private CouponSoldOutRegistry couponSoldOutRegistry;
+
+    @Mock
+    private CouponDuplicateIssueGuard couponDuplicateIssueGuard;
+
+    @Mock
+    private CouponCodeGenerator couponCodeGenerator;
+
+    private static final Long POLICY_ID = 1L;
+    private static final Long USER_ID = 7L;
+
+    private final CouponDto.IssueRequest request = CouponDto.IssueRequest.builder()
+            .couponPolicyId(POLICY_ID)
+            .build();
+
+    private CouponPolicySnapshot couponPolicy;
+
+    @BeforeEach
+    void setUp() {
+        couponPolicy = CouponPolicySnapshot.of(CouponPolicy.builder()
+                .id(POLICY_ID)
+                .startTime(LocalDateTime.now().minusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .build());
+        given(couponPolicyService.getCouponPolicySnapshot(POLICY_ID)).willReturn(couponPolicy);
+        given(couponCodeGenerator.generate()).willReturn("ABCDEFGHJKMNPQ");
+    }
+
+    @Test
+    @DisplayName("script 모드 - 쿠폰 저장에 실패하면 수량과 중복 발급 기록을 되돌림")
+    void issueWithScript_saveFailed() {
+        // given
+        ReflectionTestUtils.setField(couponRedisService, "issueMode", "script");
+        given(couponRepository.save(any())).willThrow(new RuntimeException("DB 오류"));
+
+        try (MockedStatic<UserIdInterceptor> mockedStatic = mockStatic(UserIdInterceptor.class)) {
+            mockedStatic.when(UserIdInterceptor::getCurrentUserId).thenReturn(USER_ID);
+
+            // when & then
+            assertThatThrownBy(() -> couponRedisService.issueCoupon(request))
+                    .isInstanceOf(RuntimeException.class);
+        }
+        verify(couponIssueScriptService).restore(POLICY_ID, USER_ID);
+    }
+
+    @Test
+    @DisplayName("lease 모드 - 커밋에 실패하면 임대 수량과 중복 발급 기록을 되돌림")
+    void issueWithLease_rolledBack() {
+        // given
+        ReflectionTestUtils.setField(couponRedisService, "issueMode", "lease");
+        given(couponQuotaLeaseService.tryAcquire(POLICY_ID)).willReturn(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try (MockedStatic<UserIdInterceptor> mockedStatic = mockStatic(UserIdInterceptor.class)) {
+            mockedStatic.when(UserIdInterceptor::getCurrentUserId).thenReturn(USER_ID);
+            couponRedisService.issueCoupon(request);
+            verify(couponDuplicateIssueGuard, never()).release(POLICY_ID, USER_ID);
+
+            // when
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // then
+        verify(couponQuotaLeaseService).release(POLICY_ID);
+        verify(couponDuplicateIssueGuard).release(POLICY_ID, USER_ID);
+    }
+}
@@ -0,0 +1,96 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.dto.v1.CouponDto;
+import com.traffic.couponservice.exception.CouponAlreadyUsedException;
+import com.traffic.couponservice.repository.CouponRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponServiceTest {
+
+    @InjectMocks
+    private CouponService couponService;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private CouponRedisService couponRedisService;
+
+    @Mock
+    private CouponStateService couponStateService;
+
+    private Coupon coupon;
+
+    @BeforeEach
+    void setUp() {
+        CouponPolicy policy = CouponPolicy.builder()
+                .id(1L)
+                .discountType(CouponPolicy.DiscountType.FIXED_AMOUNT)
+                .discountValue(1000)
+                .minimumOrderAmount(10000)
+                .maximumDiscountAmount(1000)
+                .startTime(LocalDateTime.now().minusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .build();
+        coupon = Coupon.builder()
+                .id(10L)
+                .couponPolicy(policy)
+                .userId(7L)
+                .couponCode("ABCDEFGHJKMNPQ")
+                .build();
+    }
+
+    @Test
+    @DisplayName("쿠폰 사용 - 비관적 락 없이 조건부 UPDATE 로 상태 변경")
+    void useCoupon_compareAndSet() {
+        // given
+        given(couponRepository.findByIdWithPolicy(10L)).willReturn(Optional.of(coupon));
+        given(couponRepository.compareAndSetStatus(eq(10L), eq(Coupon.Status.AVAILABLE), eq(0L), eq(Coupon.Status.USED), eq(100L), any()))
+                .willReturn(1);
+
+        // when
+        CouponDto.Response response = couponService.useCoupon(10L, 100L);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(Coupon.Status.USED);
+        assertThat(coupon.getVersion()).isEqualTo(1);
+        verify(couponRepository, never()).findByIdWithLock(anyLong());
+        verify(couponStateService).updateCouponState(coupon);
+    }
+
+    @Test
+    @DisplayName("쿠폰 사용 - 다른 요청이 먼저 사용하면 실패하고 상태를 저장하지 않음")
+    void useCoupon_conflict() {
+        // given
+        given(couponRepository.findByIdWithPolicy(10L)).willReturn(Optional.of(coupon));
+        given(couponRepository.compareAndSetStatus(eq(10L), eq(Coupon.Status.AVAILABLE), eq(0L), eq(Coupon.Status.USED), eq(100L), any()))
+                .willReturn(0);
+
+        // when & then
+        assertThatThrownBy(() -> couponService.useCoupon(10L, 100L))
+                .isInstanceOf(CouponAlreadyUsedException.class);
+        assertThat(coupon.getStatus()).isEqualTo(Coupon.Status.AVAILABLE);
+        verify(couponStateService, never()).updateCouponState(any());
+    }
+}
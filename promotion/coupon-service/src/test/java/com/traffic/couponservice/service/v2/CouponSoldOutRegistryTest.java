@@ -0,0 +1,163 @@
+package com.traffic.couponservice.service.v2;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RSet;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.Codec;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponSoldOutRegistryTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RSet<Object> soldOutSet;
+
+    @Mock
+    private RTopic topic;
+
+    @Captor
+    private ArgumentCaptor<MessageListener<String>> listenerCaptor;
+
+    private CouponSoldOutRegistry couponSoldOutRegistry;
+
+    @BeforeEach
+    void setUp() {
+        couponSoldOutRegistry = new CouponSoldOutRegistry(redissonClient);
+    }
+
+    private void givenSoldOutSet() {
+        given(redissonClient.getSet(eq("coupon:sold-out"), any(Codec.class))).willReturn(soldOutSet);
+    }
+
+    private void givenTopic() {
+        given(redissonClient.getTopic(eq("coupon:sold-out:topic"), any(Codec.class))).willReturn(topic);
+    }
+
+    @Test
+    @DisplayName("소진 처리하면 로컬에서 바로 거절하고 Set 기록 후 한 번만 전파")
+    void markSoldOut() {
+        // given
+        givenSoldOutSet();
+        givenTopic();
+
+        // when
+        couponSoldOutRegistry.markSoldOut(1L);
+        couponSoldOutRegistry.markSoldOut(1L);
+
+        // then
+        assertThat(couponSoldOutRegistry.isSoldOut(1L)).isTrue();
+        assertThat(couponSoldOutRegistry.isSoldOut(2L)).isFalse();
+        verify(soldOutSet).add("1");
+        verify(topic, times(1)).publish("SOLD_OUT:1");
+    }
+
+    @Test
+    @DisplayName("정합성 검사로 수량이 복구되어 해제하면 다시 발급 가능하고 해제를 전파")
+    void markAvailable_afterRepair() {
+        // given
+        givenSoldOutSet();
+        givenTopic();
+        couponSoldOutRegistry.markSoldOut(1L);
+        given(soldOutSet.remove("1")).willReturn(true);
+
+        // when
+        couponSoldOutRegistry.markAvailable(1L);
+
+        // then
+        assertThat(couponSoldOutRegistry.isSoldOut(1L)).isFalse();
+        verify(topic).publish("AVAILABLE:1");
+    }
+
+    @Test
+    @DisplayName("소진 기록이 없는 정책을 해제하면 전파하지 않음")
+    void markAvailable_notSoldOut() {
+        // given
+        givenSoldOutSet();
+        given(soldOutSet.remove("1")).willReturn(false);
+
+        // when
+        couponSoldOutRegistry.markAvailable(1L);
+
+        // then
+        assertThat(couponSoldOutRegistry.isSoldOut(1L)).isFalse();
+        verify(redissonClient, never()).getTopic(anyString(), any(Codec.class));
+    }
+
+    @Test
+    @DisplayName("Set 이 이미 복구되어 있으면 로컬에만 기록하고 전파하지 않음")
+    void restoreSoldOut_alreadyRecorded() {
+        // given
+        givenSoldOutSet();
+        given(soldOutSet.add("1")).willReturn(false);
+
+        // when
+        couponSoldOutRegistry.restoreSoldOut(1L);
+
+        // then
+        assertThat(couponSoldOutRegistry.isSoldOut(1L)).isTrue();
+        verify(redissonClient, never()).getTopic(anyString(), any(Codec.class));
+    }
+
+    @Test
+    @DisplayName("다른 노드의 소진 / 해제 알림을 받으면 로컬 상태에 반영")
+    void subscribe_appliesTopicMessages() {
+        // given
+        givenSoldOutSet();
+        givenTopic();
+        given(soldOutSet.readAll()).willReturn(Set.of());
+        couponSoldOutRegistry.subscribe();
+        verify(topic).addListener(eq(String.class), listenerCaptor.capture());
+        MessageListener<String> listener = listenerCaptor.getValue();
+
+        // when
+        listener.onMessage("coupon:sold-out:topic", "SOLD_OUT:2");
+
+        // then
+        assertThat(couponSoldOutRegistry.isSoldOut(2L)).isTrue();
+
+        // when
+        listener.onMessage("coupon:sold-out:topic", "AVAILABLE:2");
+
+        // then
+        assertThat(couponSoldOutRegistry.isSoldOut(2L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("주기적 동기화 시 놓친 알림을 Redis Set 기준으로 맞춤")
+    void reload_syncsWithRedisSet() {
+        // given
+        givenSoldOutSet();
+        givenTopic();
+        couponSoldOutRegistry.markSoldOut(1L);      // 해제 알림을 놓친 정책
+        given(soldOutSet.readAll()).willReturn(Set.of("2"));    // 소진 알림을 놓친 정책
+
+        // when
+        couponSoldOutRegistry.reload();
+
+        // then
+        assertThat(couponSoldOutRegistry.isSoldOut(1L)).isFalse();
+        assertThat(couponSoldOutRegistry.isSoldOut(2L)).isTrue();
+    }
+}
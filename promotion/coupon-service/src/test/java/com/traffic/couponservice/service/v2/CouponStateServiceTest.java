@@ -0,0 +1,304 @@
+package com.traffic.couponservice.service.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.couponservice.config.CouponRedisCodecs;
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.dto.v1.CouponDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RHyperLogLogAsync;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.TypedJsonJacksonCodec;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class CouponStateServiceTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private CouponRedisCodecs couponRedisCodecs;
+
+    @Mock
+    private RBatch rBatch;
+
+    @Mock
+    private RBucketAsync<Object> bucketAsync;
+
+    @Mock
+    private RHyperLogLogAsync<Object> hyperLogLogAsync;
+
+    @Mock
+    private RScriptAsync scriptAsync;
+
+    @Mock
+    private RScript script;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponStateService couponStateService;
+    private Coupon coupon;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        couponStateService = new CouponStateService(redissonClient, couponRedisCodecs, meterRegistry);
+        ReflectionTestUtils.setField(couponStateService, "queueCapacity", 100);
+        ReflectionTestUtils.setField(couponStateService, "batchSize", 500);
+        ReflectionTestUtils.setField(couponStateService, "graceSeconds", 86400L);
+        couponStateService.init();
+
+        CouponPolicy policy = CouponPolicy.builder()
+                .id(1L)
+                .discountType(CouponPolicy.DiscountType.FIXED_AMOUNT)
+                .discountValue(1000)
+                .minimumOrderAmount(10000)
+                .maximumDiscountAmount(1000)
+                .startTime(LocalDateTime.now().minusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .build();
+        coupon = Coupon.builder()
+                .id(10L)
+                .couponPolicy(policy)
+                .userId(7L)
+                .couponCode("ABCDEFGHJKMNPQ")
+                .build();
+    }
+
+    private void batchWillBeCreated() {
+        given(couponRedisCodecs.getCouponStateCodec())
+                .willReturn(new TypedJsonJacksonCodec(CouponDto.Response.class, new ObjectMapper().findAndRegisterModules()));
+        given(redissonClient.createBatch(any(BatchOptions.class))).willReturn(rBatch);
+        given(rBatch.getScript(any(Codec.class))).willReturn(scriptAsync);
+        given(rBatch.getHyperLogLog(anyString(), any(Codec.class))).willReturn(hyperLogLogAsync);
+    }
+
+    // 상태 저장 스크립트 인자 [version, state, ttl]
+    private Object[] writtenArgs() {
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(scriptAsync).evalAsync(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                eq(List.<Object>of("coupon:state:" + coupon.getId())), args.capture(), args.capture(), args.capture());
+        return args.getAllValues().toArray();
+    }
+
+    private static String ascii(Object bytes) {
+        return new String((byte[]) bytes, StandardCharsets.US_ASCII);
+    }
+
+    private double queueSize() {
+        return meterRegistry.get("coupon.state.write.queue").gauge().value();
+    }
+
+    @Test
+    @DisplayName("같은 쿠폰의 변경은 마지막 상태만 파이프라인으로 저장")
+    void flush_latestStateOnly() {
+        // given
+        batchWillBeCreated();
+        couponStateService.updateCouponState(coupon);
+        coupon.use(100L);
+        couponStateService.updateCouponState(coupon);
+
+        // when
+        couponStateService.flush();
+
+        // then
+        Object[] args = writtenArgs();
+        assertThat(ascii(args[0])).isEqualTo("1");
+        assertThat(ascii(args[1])).contains("USED");
+        verify(rBatch).execute();
+        assertThat(queueSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("상태 키 TTL 은 정책 종료 시각 + grace 까지")
+    void flush_ttlAlignedWithPolicyEnd() {
+        // given
+        batchWillBeCreated();
+        couponStateService.updateCouponState(coupon);
+
+        // when
+        couponStateService.flush();
+
+        // then
+        long ttl = Long.parseLong(ascii(writtenArgs()[2]));
+        // 종료까지 1일 + grace 1일
+        assertThat(ttl).isBetween(TimeUnit.HOURS.toMillis(47), TimeUnit.HOURS.toMillis(48));
+        verify(hyperLogLogAsync).addAsync(coupon.getId());
+    }
+
+    @Test
+    @DisplayName("보관 기간이 지난 쿠폰은 상태를 저장하지 않고 키를 삭제")
+    void flush_expiredCoupon() {
+        // given
+        CouponPolicy expiredPolicy = CouponPolicy.builder()
+                .id(2L)
+                .discountType(CouponPolicy.DiscountType.FIXED_AMOUNT)
+                .discountValue(1000)
+                .minimumOrderAmount(10000)
+                .maximumDiscountAmount(1000)
+                .startTime(LocalDateTime.now().minusDays(30))
+                .endTime(LocalDateTime.now().minusDays(10))
+                .build();
+        Coupon expired = Coupon.builder()
+                .id(20L)
+                .couponPolicy(expiredPolicy)
+                .userId(7L)
+                .couponCode("QPNMKJHGFEDCBA")
+                .build();
+        given(redissonClient.createBatch(any(BatchOptions.class))).willReturn(rBatch);
+        given(rBatch.getBucket(anyString())).willReturn(bucketAsync);
+        couponStateService.updateCouponState(expired);
+
+        // when
+        couponStateService.flush();
+
+        // then
+        verify(bucketAsync).deleteAsync();
+        verify(rBatch, never()).getScript(any(Codec.class));
+    }
+
+    @Test
+    @DisplayName("커밋 이후 콜백이 늦게 실행되어도 낮은 버전의 상태가 높은 버전을 덮어쓰지 않음")
+    void flush_keepsHigherVersion() {
+        // given
+        batchWillBeCreated();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            couponStateService.updateCouponState(coupon);               // version 0 (발급)
+            coupon.use(100L);
+            couponStateService.updateCouponState(coupon);               // version 1 (사용)
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.get(1).afterCommit();
+            synchronizations.get(0).afterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // when
+        couponStateService.flush();
+
+        // then
+        Object[] args = writtenArgs();
+        assertThat(ascii(args[0])).isEqualTo("1");
+        assertThat(ascii(args[1])).contains("USED");
+    }
+
+    @Test
+    @DisplayName("이전 형식(문자열) 키가 남아 있어도 응답을 받지 않는 파이프라인으로 저장하고, 스크립트에서 삭제 후 해시로 저장")
+    void flush_legacyStringKey() {
+        // given
+        batchWillBeCreated();
+        couponStateService.updateCouponState(coupon);
+
+        // when
+        couponStateService.flush();
+
+        // then
+        ArgumentCaptor<BatchOptions> options = ArgumentCaptor.forClass(BatchOptions.class);
+        verify(redissonClient).createBatch(options.capture());
+        assertThat(options.getValue().isSkipResult()).isTrue();
+        ArgumentCaptor<String> writeScript = ArgumentCaptor.forClass(String.class);
+        verify(scriptAsync).evalAsync(eq(RScript.Mode.READ_WRITE), writeScript.capture(), eq(RScript.ReturnType.INTEGER),
+                eq(List.<Object>of("coupon:state:" + coupon.getId())), any(), any(), any());
+        assertThat(writeScript.getValue()).contains("redis.call('TYPE', KEYS[1]).ok ~= 'hash'", "redis.call('DEL', KEYS[1])");
+        assertThat(queueSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("이전 형식(문자열) 키는 예외 없이 캐시 미스로 처리하고 삭제")
+    void getCouponState_legacyStringKey() {
+        // given
+        given(couponRedisCodecs.getCouponStateCodec())
+                .willReturn(new TypedJsonJacksonCodec(CouponDto.Response.class, new ObjectMapper().findAndRegisterModules()));
+        given(redissonClient.getScript(any(Codec.class))).willReturn(script);
+        given(script.eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.VALUE), eq(List.<Object>of("coupon:state:10"))))
+                .willReturn(null);
+
+        // when
+        CouponDto.Response state = couponStateService.getCouponState(10L);
+
+        // then
+        assertThat(state).isNull();
+        ArgumentCaptor<String> readScript = ArgumentCaptor.forClass(String.class);
+        verify(script).eval(eq(RScript.Mode.READ_WRITE), readScript.capture(), eq(RScript.ReturnType.VALUE), eq(List.<Object>of("coupon:state:10")));
+        assertThat(readScript.getValue()).contains("keyType == 'hash'", "redis.call('DEL', KEYS[1])");
+    }
+
+    @Test
+    @DisplayName("Redis 에 저장되기 전에는 대기 중인 상태를 반환")
+    void getCouponState_pending() {
+        // given
+        coupon.use(100L);
+        couponStateService.updateCouponState(coupon);
+
+        // when
+        CouponDto.Response state = couponStateService.getCouponState(coupon.getId());
+
+        // then
+        assertThat(state.getStatus()).isEqualTo(Coupon.Status.USED);
+        verifyNoInteractions(redissonClient);
+    }
+
+    @Test
+    @DisplayName("트랜잭션 안에서 변경된 상태는 커밋 이후에 대기열에 추가")
+    void updateCouponState_afterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            couponStateService.updateCouponState(coupon);
+            assertThat(queueSize()).isZero();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // then
+            assertThat(queueSize()).isEqualTo(1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Redis 저장에 실패하면 대기열에 남겨 다음 주기에 다시 저장")
+    void flush_failed() {
+        // given
+        batchWillBeCreated();
+        given(rBatch.execute()).willThrow(new RuntimeException("Redis 연결 실패"));
+        couponStateService.updateCouponState(coupon);
+
+        // when
+        couponStateService.flush();
+
+        // then
+        assertThat(queueSize()).isEqualTo(1);
+        assertThat(meterRegistry.get("coupon.state.write.flush").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,194 @@
+package com.traffic.couponservice.service.v2;
+
+import com.traffic.couponservice.domain.CouponPolicy;
+import com.traffic.couponservice.domain.id.SnowflakeIdGenerator;
+import com.traffic.couponservice.repository.CouponPolicyRepository;
+import com.traffic.couponservice.repository.CouponRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBucket;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponStockReconcilerTest {
+
+    @Mock
+    private CouponPolicyRepository couponPolicyRepository;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private CouponSoldOutRegistry couponSoldOutRegistry;
+
+    @Mock
+    private RBucket<Object> hwmBucket;
+
+    @Mock
+    private RMap<Object, Object> issuedMap;
+
+    @Mock
+    private RAtomicLong quantity;
+
+    @Mock
+    private RScript rScript;
+
+    private CouponStockReconciler couponStockReconciler;
+
+    private static final Long POLICY_ID = 1L;
+
+    // 현재 - safety-lag 까지 누적을 마친 hwm
+    private static final long RECENT_HWM = SnowflakeIdGenerator.firstIdAt(System.currentTimeMillis() - 60_000) - 1;
+
+    @BeforeEach
+    void setUp() {
+        couponStockReconciler = new CouponStockReconciler(couponPolicyRepository, couponRepository, redissonClient,
+                couponSoldOutRegistry, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(couponStockReconciler, "issueMode", "lock");
+        ReflectionTestUtils.setField(couponStockReconciler, "safetyLagSeconds", 60L);
+        ReflectionTestUtils.setField(couponStockReconciler, "windowMinutes", 60L);
+        ReflectionTestUtils.setField(couponStockReconciler, "maxWindowsPerRun", 1);
+        ReflectionTestUtils.setField(couponStockReconciler, "alertThreshold", 1L);
+        ReflectionTestUtils.setField(couponStockReconciler, "repairEnabled", true);
+        ReflectionTestUtils.setField(couponStockReconciler, "maxAdjustment", 100L);
+        ReflectionTestUtils.setField(couponStockReconciler, "restoredCreditTtlSeconds", 86400L);
+        couponStockReconciler.init();
+        given(redissonClient.getBucket(anyString(), any(Codec.class))).willReturn(hwmBucket);
+    }
+
+    private void activePolicyWithRedisQuantity(long redisQuantity) {
+        CouponPolicy policy = CouponPolicy.builder()
+                .id(POLICY_ID)
+                .totalQuantity(100)
+                .startTime(LocalDateTime.now().minusHours(1))
+                .endTime(LocalDateTime.now().plusHours(1))
+                .build();
+        given(couponPolicyRepository.findIssuablePolicies(any(), any())).willReturn(List.of(policy));
+        given(hwmBucket.get()).willReturn(String.valueOf(RECENT_HWM));
+        given(redissonClient.getMap(anyString(), any(Codec.class))).willReturn(issuedMap);
+        // 누적 60건 + hwm 이후 10건 = 발급 70건, 남은 수량 30
+        given(issuedMap.getAll(any())).willReturn(Map.of("1", "60"));
+        given(couponRepository.countGroupByCouponPolicyIdInAndIdGreaterThan(List.of(POLICY_ID), RECENT_HWM))
+                .willReturn(List.<Object[]>of(new Object[]{POLICY_ID, 10L}));
+        given(redissonClient.getAtomicLong("coupon:quantity:1")).willReturn(quantity);
+        given(quantity.isExists()).willReturn(true);
+        given(quantity.get()).willReturn(redisQuantity);
+    }
+
+    @Test
+    @DisplayName("high-water mark 이후 구간만 세서 누적하고 hwm 을 올림")
+    void advanceHighWaterMark() {
+        // given
+        given(hwmBucket.get()).willReturn("500");
+        given(couponRepository.findMinIdGreaterThan(500L)).willReturn(null);
+        given(couponRepository.countGroupByCouponPolicyIdInIdRange(eq(500L), anyLong()))
+                .willReturn(List.<Object[]>of(new Object[]{POLICY_ID, 3L}));
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+
+        // when
+        couponStockReconciler.advanceHighWaterMark();
+
+        // then
+        verify(rScript).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER), anyList(),
+                eq("500"), anyString(), eq("1"), eq("3"));
+    }
+
+    private void repairWillSucceed(String actual, String expected, String restoredCredit) {
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+        given(rScript.eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                eq(List.<Object>of("coupon:quantity:1", "coupon:reconcile:restored:1")),
+                eq(actual), eq(expected), eq(restoredCredit), eq("86400")))
+                .willReturn(1L);
+    }
+
+    @Test
+    @DisplayName("두 주기 연속 같은 차이가 나면 Redis 수량을 DB 기준으로 수정")
+    void compare_repairsStableDrift() {
+        // given
+        activePolicyWithRedisQuantity(35);
+        repairWillSucceed("35", "30", "0");
+
+        // when
+        couponStockReconciler.compareActivePolicies();
+        couponStockReconciler.compareActivePolicies();
+
+        // then
+        verify(rScript).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER), anyList(),
+                eq("35"), eq("30"), eq("0"), eq("86400"));
+        verify(couponSoldOutRegistry).markAvailable(POLICY_ID);
+    }
+
+    @Test
+    @DisplayName("수량을 올려서 복구하면 올린 만큼 기록하여 같은 실패를 DLT 보상이 다시 복구하지 않도록 함")
+    void compare_repairUpRecordsRestoredCredit() {
+        // given
+        activePolicyWithRedisQuantity(28);      // 처리 대기가 아닌 실패로 2건이 빠진 상태
+        repairWillSucceed("28", "30", "2");
+
+        // when
+        couponStockReconciler.compareActivePolicies();
+        couponStockReconciler.compareActivePolicies();
+
+        // then
+        verify(rScript).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER), anyList(),
+                eq("28"), eq("30"), eq("2"), eq("86400"));
+        verify(couponSoldOutRegistry).markAvailable(POLICY_ID);
+    }
+
+    @Test
+    @DisplayName("한 번만 나타난 차이는 수정하지 않음")
+    void compare_ignoresTransientDrift() {
+        // given
+        activePolicyWithRedisQuantity(35);
+
+        // when
+        couponStockReconciler.compareActivePolicies();
+
+        // then
+        verify(redissonClient, never()).getScript(any(Codec.class));
+    }
+
+    @Test
+    @DisplayName("hwm 이 따라잡는 중이면 비교하지 않고 hwm 이후 전체 구간도 세지 않음")
+    void compare_skipsWhileCatchingUp() {
+        // given
+        given(couponPolicyRepository.findIssuablePolicies(any(), any())).willReturn(List.of(CouponPolicy.builder()
+                .id(POLICY_ID)
+                .totalQuantity(100)
+                .build()));
+        given(hwmBucket.get()).willReturn("500");
+
+        // when
+        couponStockReconciler.compareActivePolicies();
+
+        // then
+        verify(couponRepository, never()).countGroupByCouponPolicyIdInAndIdGreaterThan(anyList(), anyLong());
+        verify(redissonClient, never()).getAtomicLong(anyString());
+    }
+}
@@ -0,0 +1,60 @@
+package com.traffic.couponservice.service.v3;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CouponAdmissionTokenProviderTest {
+
+    private final CouponAdmissionTokenProvider tokenProvider = new CouponAdmissionTokenProvider("test-admission-token-secret-32bytes");
+
+    @Test
+    @DisplayName("입장 토큰 검증 성공")
+    void verify_Success() {
+        // given
+        String token = tokenProvider.issue(1L, 10L, System.currentTimeMillis() + 60_000);
+
+        // when & then
+        assertThat(tokenProvider.verify(token, 1L, 10L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("입장 토큰 검증 실패 - 다른 정책 또는 다른 사용자")
+    void verify_OtherPolicyOrUser() {
+        // given
+        String token = tokenProvider.issue(1L, 10L, System.currentTimeMillis() + 60_000);
+
+        // when & then
+        assertThat(tokenProvider.verify(token, 2L, 10L)).isFalse();
+        assertThat(tokenProvider.verify(token, 1L, 11L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("입장 토큰 검증 실패 - 만료 또는 변조")
+    void verify_ExpiredOrTampered() {
+        // given
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        String expired = tokenProvider.issue(1L, 10L, System.currentTimeMillis() - 1);
+        String token = tokenProvider.issue(1L, 10L, expiresAt);
+
+        // when
+        String tampered = token.replace(String.valueOf(expiresAt), String.valueOf(expiresAt + 600_000));
+
+        // then
+        assertThat(tokenProvider.verify(expired, 1L, 10L)).isFalse();
+        assertThat(tokenProvider.verify(tampered, 1L, 10L)).isFalse();
+        assertThat(new CouponAdmissionTokenProvider("other-admission-token-secret-32bytes").verify(token, 1L, 10L)).isFalse();
+        assertThat(tokenProvider.verify(null, 1L, 10L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("서명 키가 비었거나 짧으면 기동 실패")
+    void create_WeakSecret() {
+        assertThatThrownBy(() -> new CouponAdmissionTokenProvider(""))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new CouponAdmissionTokenProvider("test-secret"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
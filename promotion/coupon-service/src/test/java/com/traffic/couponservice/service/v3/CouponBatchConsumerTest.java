@@ -0,0 +1,89 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponBatchConsumerTest {
+
+    @Mock
+    private CouponService couponService;
+
+    @Mock
+    private CouponIssueTicketService couponIssueTicketService;
+
+    @Mock
+    private CouponIssueIdempotencyService couponIssueIdempotencyService;
+
+    private CouponBatchConsumer couponBatchConsumer;
+
+    @BeforeEach
+    void setUp() {
+        couponBatchConsumer = new CouponBatchConsumer(couponService, couponIssueTicketService, couponIssueIdempotencyService);
+        given(couponIssueIdempotencyService.excludeAlreadyIssued(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static CouponDto.IssueMessage message(String ticketId) {
+        return CouponDto.IssueMessage.builder()
+                .ticketId(ticketId)
+                .policyId(1L)
+                .userId(Long.valueOf(ticketId))
+                .build();
+    }
+
+    @Test
+    @DisplayName("배치 저장에 성공하면 티켓 상태를 한 번에 갱신")
+    void consume_batchSaved() {
+        // given
+        List<CouponDto.IssueMessage> messages = List.of(message("1"), message("2"));
+        given(couponService.issueCoupons(messages)).willReturn(List.of(mock(Coupon.class), mock(Coupon.class)));
+
+        // when
+        couponBatchConsumer.consumeCouponIssueRequests(messages);
+
+        // then
+        verify(couponIssueTicketService).markIssued(anyMap());
+        verify(couponService, never()).issueCoupon(any());
+    }
+
+    @Test
+    @DisplayName("배치 저장에 실패하면 한 건씩 저장하고 실패한 메시지의 위치만 알림")
+    void consume_reportsPoisonRecordIndex() {
+        // given
+        List<CouponDto.IssueMessage> messages = List.of(message("1"), message("2"), message("3"));
+        given(couponService.issueCoupons(messages)).willThrow(new IllegalStateException("DB 오류"));
+        willAnswer(invocation -> {
+            if ("2".equals(((CouponDto.IssueMessage) invocation.getArgument(0)).getTicketId())) {
+                throw new IllegalStateException("DB 오류");
+            }
+            return mock(Coupon.class);
+        }).given(couponService).issueCoupon(any());
+
+        // when & then
+        assertThatThrownBy(() -> couponBatchConsumer.consumeCouponIssueRequests(messages))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> assertThat(e.getIndex()).isEqualTo(1));
+        verify(couponIssueTicketService).markIssued(eq("1"), any());
+        verify(couponService, never()).issueCoupon(messages.get(2));
+    }
+}
@@ -0,0 +1,158 @@
+package com.traffic.couponservice.service.v3;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.MemberAssignment;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponConsumerConcurrencyScalerTest {
+
+    private static final long LAG_PER_CONSUMER = 1000;
+
+    @Mock
+    private KafkaAdmin kafkaAdmin;
+
+    @Mock
+    private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Mock
+    private ConcurrentMessageListenerContainer<Object, Object> container;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponConsumerConcurrencyScaler scaler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scaler = new CouponConsumerConcurrencyScaler(kafkaAdmin, kafkaListenerEndpointRegistry, meterRegistry);
+    }
+
+    // 정지 요청을 받은 컨테이너가 정지를 마치고 콜백을 호출
+    private void stopCompletes() {
+        ArgumentCaptor<Runnable> callback = ArgumentCaptor.forClass(Runnable.class);
+        verify(container).stop(callback.capture());
+        callback.getValue().run();
+    }
+
+    @Test
+    @DisplayName("랙이 없으면 최소 동시성 유지")
+    void desiredConcurrency_noLag() {
+        assertThat(CouponConsumerConcurrencyScaler.desiredConcurrency(0, LAG_PER_CONSUMER, 1, 3)).isEqualTo(1);
+        assertThat(CouponConsumerConcurrencyScaler.desiredConcurrency(0, LAG_PER_CONSUMER, 2, 3)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("랙을 컨슈머 1개가 감당할 랙으로 나눈 만큼 동시성 증가")
+    void desiredConcurrency_scalesWithLag() {
+        assertThat(CouponConsumerConcurrencyScaler.desiredConcurrency(1000, LAG_PER_CONSUMER, 1, 6)).isEqualTo(1);
+        assertThat(CouponConsumerConcurrencyScaler.desiredConcurrency(1001, LAG_PER_CONSUMER, 1, 6)).isEqualTo(2);
+        assertThat(CouponConsumerConcurrencyScaler.desiredConcurrency(4500, LAG_PER_CONSUMER, 1, 6)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("파티션 수(상한)보다 많은 컨슈머는 두지 않음")
+    void desiredConcurrency_cappedByPartitions() {
+        assertThat(CouponConsumerConcurrencyScaler.desiredConcurrency(1_000_000, LAG_PER_CONSUMER, 1, 3)).isEqualTo(3);
+        assertThat(CouponConsumerConcurrencyScaler.desiredConcurrency(Long.MAX_VALUE - LAG_PER_CONSUMER, LAG_PER_CONSUMER, 1, 3)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("그룹 전체 랙과 파티션을 노드 수로 나눠 노드별 동시성을 정함")
+    void nodeConcurrency_sharedAcrossNodes() {
+        // 랙 10000 / 노드 3 = 노드당 3334 -> 4개 필요하지만 파티션 6 / 노드 3 = 2 로 제한
+        assertThat(CouponConsumerConcurrencyScaler.nodeConcurrency(10_000, LAG_PER_CONSUMER, 3, 6, 1, 6)).isEqualTo(2);
+        // 랙 3000 / 노드 3 = 노드당 1000 -> 1개
+        assertThat(CouponConsumerConcurrencyScaler.nodeConcurrency(3_000, LAG_PER_CONSUMER, 3, 6, 1, 6)).isEqualTo(1);
+        // 노드가 1개면 그룹 전체 기준과 같음
+        assertThat(CouponConsumerConcurrencyScaler.nodeConcurrency(4_500, LAG_PER_CONSUMER, 1, 6, 1, 6))
+                .isEqualTo(CouponConsumerConcurrencyScaler.desiredConcurrency(4_500, LAG_PER_CONSUMER, 1, 6));
+    }
+
+    @Test
+    @DisplayName("노드 수는 그룹 컨슈머의 host 수, 컨슈머가 없으면 1")
+    void nodeCount_distinctHosts() {
+        List<MemberDescription> members = List.of(
+                member("c-1", "/10.0.0.1"), member("c-2", "/10.0.0.1"), member("c-3", "/10.0.0.2"));
+
+        assertThat(CouponConsumerConcurrencyScaler.nodeCount(members)).isEqualTo(2);
+        assertThat(CouponConsumerConcurrencyScaler.nodeCount(List.of())).isEqualTo(1);
+    }
+
+    private static MemberDescription member(String consumerId, String host) {
+        return new MemberDescription(consumerId, consumerId, host, new MemberAssignment(Set.of()));
+    }
+
+    @Test
+    @DisplayName("정지가 끝나면 다음 주기를 기다리지 않고 새 동시성으로 재시작")
+    void scale_restartsFromStopCallback() {
+        // given
+        given(container.isRunning()).willReturn(false);
+        given(container.isChildRunning()).willReturn(false);
+
+        // when
+        scaler.scale(container, 1, 3);
+        stopCompletes();
+
+        // then
+        InOrder inOrder = inOrder(container);
+        inOrder.verify(container, timeout(1000)).setConcurrency(3);
+        inOrder.verify(container, timeout(1000)).start();
+        assertThat(meterRegistry.get("coupon.kafka.consumer.scaling").tag("direction", "up").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("정지 중에는 스케줄러가 재시작하거나 다시 조절하지 않음")
+    void adjust_waitsWhileStopping() {
+        // given
+        given(kafkaListenerEndpointRegistry.getListenerContainer(CouponConsumerConcurrencyScaler.LISTENER_ID)).willReturn(container);
+        given(container.isRunning()).willReturn(true);
+        scaler.scale(container, 3, 1);
+
+        // when
+        scaler.adjust();
+
+        // then
+        verify(container, never()).start();
+        verify(container, never()).getConcurrency();
+    }
+
+    @Test
+    @DisplayName("정지 콜백에서 재시작하지 못하면 다음 주기에 재시작")
+    void adjust_restartsPendingConcurrency() {
+        // given
+        given(kafkaListenerEndpointRegistry.getListenerContainer(CouponConsumerConcurrencyScaler.LISTENER_ID)).willReturn(container);
+        given(container.isRunning()).willReturn(false);
+        given(container.isChildRunning()).willReturn(true, false);
+        scaler.scale(container, 3, 1);
+        stopCompletes();    // 아직 자식 컨테이너가 정지 중이라 재시작하지 않음
+        verify(container, timeout(1000).times(1)).isChildRunning();
+
+        // when
+        scaler.adjust();
+
+        // then
+        verify(container).setConcurrency(1);
+        verify(container).start();
+    }
+}
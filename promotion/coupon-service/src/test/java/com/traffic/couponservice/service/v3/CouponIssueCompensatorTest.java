@@ -0,0 +1,145 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import com.traffic.couponservice.repository.CouponRepository;
+import com.traffic.couponservice.service.v2.CouponSoldOutRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponIssueCompensatorTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RScript rScript;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private CouponSoldOutRegistry couponSoldOutRegistry;
+
+    @Mock
+    private CouponIssueTicketService couponIssueTicketService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponIssueCompensator couponIssueCompensator;
+
+    private static final String TICKET_ID = "1001";
+    private static final Long POLICY_ID = 1L;
+    private static final Long USER_ID = 7L;
+    private static final String REASON = "쿠폰 발급 처리에 실패했습니다. 다시 시도해주세요";
+
+    private final CouponDto.IssueMessage message = CouponDto.IssueMessage.builder()
+            .ticketId(TICKET_ID)
+            .policyId(POLICY_ID)
+            .userId(USER_ID)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        couponIssueCompensator = new CouponIssueCompensator(redissonClient, couponRepository,
+                couponSoldOutRegistry, couponIssueTicketService, meterRegistry);
+        ReflectionTestUtils.setField(couponIssueCompensator, "compensatedTtlSeconds", 86400L);
+    }
+
+    private void scriptWillReturn(Long result) {
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+        given(rScript.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class)))
+                .willReturn(result);
+    }
+
+    @Test
+    @DisplayName("최종 실패한 발급 요청은 수량을 복구하고 티켓을 실패로 기록")
+    void compensate_restoresStock() {
+        // given
+        given(couponRepository.findByIssueKey(TICKET_ID)).willReturn(Optional.empty());
+        scriptWillReturn(10L);
+
+        // when
+        couponIssueCompensator.compensate(message, REASON);
+
+        // then
+        verify(couponSoldOutRegistry).markAvailable(POLICY_ID);
+        verify(couponIssueTicketService).markFailed(TICKET_ID, REASON);
+        assertThat(meterRegistry.get("coupon.issue.stock.restored").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("이미 복구한 메시지가 다시 전달되면 수량을 다시 복구하지 않음")
+    void compensate_alreadyCompensated() {
+        // given
+        given(couponRepository.findByIssueKey(TICKET_ID)).willReturn(Optional.empty());
+        scriptWillReturn(-1L);
+
+        // when
+        couponIssueCompensator.compensate(message, REASON);
+
+        // then
+        verify(couponSoldOutRegistry, never()).markAvailable(any());
+        verify(couponIssueTicketService, never()).markFailed(any(), any());
+        assertThat(meterRegistry.find("coupon.issue.stock.restored").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("대사가 먼저 같은 수량을 올려 복구했다면 다시 올리지 않고 티켓만 실패로 기록")
+    void compensate_alreadyRestoredByReconciler() {
+        // given
+        given(couponRepository.findByIssueKey(TICKET_ID)).willReturn(Optional.empty());
+        scriptWillReturn(-3L);
+
+        // when
+        couponIssueCompensator.compensate(message, REASON);
+
+        // then
+        verify(rScript).eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class),
+                eq(List.<Object>of("coupon:compensated:" + TICKET_ID, "coupon:quantity:" + POLICY_ID,
+                        "coupon:issued:" + POLICY_ID, "coupon:reconcile:restored:" + POLICY_ID)),
+                any(Object[].class));
+        verify(couponSoldOutRegistry, never()).markAvailable(any());
+        verify(couponIssueTicketService).markFailed(TICKET_ID, REASON);
+        assertThat(meterRegistry.find("coupon.issue.stock.restored").counter()).isNull();
+        assertThat(meterRegistry.get("coupon.issue.compensated").tag("result", "restored-by-reconciler").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("마지막 시도에서 쿠폰이 저장되었다면 수량을 복구하지 않고 발급 완료로 기록")
+    void compensate_alreadyIssued() {
+        // given
+        Coupon coupon = Coupon.builder()
+                .userId(USER_ID)
+                .couponCode("ABCDEFGHJKMNPQ")
+                .issueKey(TICKET_ID)
+                .build();
+        given(couponRepository.findByIssueKey(TICKET_ID)).willReturn(Optional.of(coupon));
+
+        // when
+        couponIssueCompensator.compensate(message, REASON);
+
+        // then
+        verify(couponIssueTicketService).markIssued(TICKET_ID, coupon);
+        verify(redissonClient, never()).getScript(any(Codec.class));
+    }
+}
@@ -0,0 +1,171 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.domain.Coupon;
+import com.traffic.couponservice.dto.v3.CouponDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponParallelConsumerTest {
+
+    @Mock
+    private CouponService couponService;
+
+    @Mock
+    private CouponIssueTicketService couponIssueTicketService;
+
+    @Mock
+    private CouponIssueIdempotencyService couponIssueIdempotencyService;
+
+    private CouponParallelConsumer couponParallelConsumer;
+
+    @BeforeEach
+    void setUp() {
+        couponParallelConsumer = new CouponParallelConsumer(couponService, couponIssueTicketService,
+                couponIssueIdempotencyService, new SimpleMeterRegistry(), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        couponParallelConsumer.shutdown();
+    }
+
+    private static CouponDto.IssueMessage message(String ticketId, Long userId) {
+        return CouponDto.IssueMessage.builder()
+                .ticketId(ticketId)
+                .policyId(1L)
+                .userId(userId)
+                .build();
+    }
+
+    private static List<ConsumerRecord<String, CouponDto.IssueMessage>> records(List<CouponDto.IssueMessage> messages) {
+        return IntStream.range(0, messages.size())
+                .mapToObj(i -> new ConsumerRecord<>("coupon-issue-requests", 0, i, "1", messages.get(i)))
+                .toList();
+    }
+
+    private void noneAlreadyIssued() {
+        given(couponIssueIdempotencyService.excludeAlreadyIssued(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("같은 사용자의 메시지는 배치 안의 순서대로 처리")
+    void consume_keepsOrderPerUser() {
+        // given
+        List<CouponDto.IssueMessage> messages = List.of(
+                message("1", 7L), message("2", 8L), message("3", 7L), message("4", 9L), message("5", 7L), message("6", 8L));
+        noneAlreadyIssued();
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        willAnswer(invocation -> {
+            CouponDto.IssueMessage issued = invocation.getArgument(0);
+            Thread.sleep(issued.getUserId() == 7L ? 5 : 1);     // 다른 사용자 레인과 실행 순서가 섞이도록
+            processed.add(issued.getUserId() + ":" + issued.getTicketId());
+            return mock(Coupon.class);
+        }).given(couponService).issueCoupon(any());
+
+        // when
+        couponParallelConsumer.consumeCouponIssueRequests(records(messages));
+
+        // then
+        assertThat(processed).hasSize(6);
+        assertThat(processed.stream().filter(entry -> entry.startsWith("7:")).toList())
+                .containsExactly("7:1", "7:3", "7:5");
+        assertThat(processed.stream().filter(entry -> entry.startsWith("8:")).toList())
+                .containsExactly("8:2", "8:6");
+    }
+
+    @Test
+    @DisplayName("여러 레인이 실패하면 배치에서 가장 앞선 실패 위치를 알림")
+    void consume_reportsEarliestFailure() {
+        // given
+        List<CouponDto.IssueMessage> messages = List.of(
+                message("1", 7L), message("2", 8L), message("3", 7L), message("4", 7L));
+        noneAlreadyIssued();
+        willAnswer(invocation -> {
+            String ticketId = ((CouponDto.IssueMessage) invocation.getArgument(0)).getTicketId();
+            if ("2".equals(ticketId) || "3".equals(ticketId)) {
+                throw new IllegalStateException("DB 오류");
+            }
+            return mock(Coupon.class);
+        }).given(couponService).issueCoupon(any());
+
+        // when & then
+        assertThatThrownBy(() -> couponParallelConsumer.consumeCouponIssueRequests(records(messages)))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> assertThat(e.getIndex()).isEqualTo(1));
+        // 실패한 사용자의 이후 메시지는 처리하지 않음 (실패 위치부터 다시 처리)
+        verify(couponService, never()).issueCoupon(messages.get(3));
+    }
+
+    @Test
+    @DisplayName("이미 발급된 메시지는 건너뜀")
+    void consume_skipsAlreadyIssued() {
+        // given
+        List<CouponDto.IssueMessage> messages = List.of(message("1", 7L), message("2", 8L));
+        given(couponIssueIdempotencyService.excludeAlreadyIssued(anyList())).willReturn(List.of(messages.get(1)));
+        given(couponService.issueCoupon(messages.get(1))).willReturn(mock(Coupon.class));
+
+        // when
+        couponParallelConsumer.consumeCouponIssueRequests(records(messages));
+
+        // then
+        verify(couponService, never()).issueCoupon(messages.get(0));
+        verify(couponService).issueCoupon(messages.get(1));
+    }
+
+    @Test
+    @DisplayName("같은 멱등 키로 이미 저장된 메시지는 저장된 쿠폰으로 티켓을 기록")
+    void consume_duplicateIssueKey() {
+        // given
+        CouponDto.IssueMessage duplicate = message("1", 7L);
+        Coupon issued = mock(Coupon.class);
+        noneAlreadyIssued();
+        given(couponService.issueCoupon(duplicate)).willThrow(new DataIntegrityViolationException("uk_coupon_issue_key"));
+        given(couponIssueIdempotencyService.findIssuedCoupon(duplicate)).willReturn(Optional.of(issued));
+
+        // when
+        couponParallelConsumer.consumeCouponIssueRequests(records(List.of(duplicate)));
+
+        // then
+        verify(couponIssueTicketService).markIssued("1", issued);
+    }
+
+    @Test
+    @DisplayName("처리할 메시지가 없으면 발급하지 않음")
+    void consume_nothingPending() {
+        // given
+        given(couponIssueIdempotencyService.excludeAlreadyIssued(anyList())).willReturn(List.of());
+
+        // when
+        couponParallelConsumer.consumeCouponIssueRequests(records(List.of(message("1", 7L))));
+
+        // then
+        verify(couponService, never()).issueCoupon(any());
+        verify(couponIssueTicketService, never()).markIssued(anyString(), any());
+    }
+}
@@ -0,0 +1,93 @@
+package com.traffic.couponservice.service.v3;
+
+import com.traffic.couponservice.dto.v3.CouponDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CouponProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, CouponDto.IssueMessage> kafkaTemplate;
+
+    @Mock
+    private CouponIssueCompensator couponIssueCompensator;
+
+    private CouponProducer couponProducer;
+
+    private final CouponDto.IssueMessage message = CouponDto.IssueMessage.builder()
+            .ticketId("1001")
+            .policyId(1L)
+            .userId(7L)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        couponProducer = new CouponProducer(kafkaTemplate, couponIssueCompensator, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("전송에 실패하면 차감한 수량과 중복 발급 기록을 보상 처리")
+    void send_failed() {
+        // given
+        given(kafkaTemplate.send(anyString(), anyString(), eq(message)))
+                .willReturn(CompletableFuture.failedFuture(new RuntimeException("브로커 연결 실패")));
+
+        // when
+        couponProducer.sendCouponIssueRequest(message);
+
+        // then
+        verify(couponIssueCompensator, timeout(1000)).compensate(eq(message), anyString());
+    }
+
+    @Test
+    @DisplayName("send() 가 바로 예외를 던져도 보상 처리 후 예외를 전달")
+    void send_throwsSynchronously() {
+        // given
+        given(kafkaTemplate.send(anyString(), anyString(), eq(message)))
+                .willThrow(new RuntimeException("메타데이터 대기 시간 초과"));
+
+        // when & then
+        assertThatThrownBy(() -> couponProducer.sendCouponIssueRequest(message))
+                .isInstanceOf(RuntimeException.class);
+        verify(couponIssueCompensator).compensate(eq(message), anyString());
+    }
+
+    @Test
+    @DisplayName("전송에 성공하면 보상 처리하지 않음")
+    void send_success() {
+        // given
+        SendResult<String, CouponDto.IssueMessage> result = new SendResult<>(
+                new ProducerRecord<>("coupon-issue-requests", "1", message),
+                new RecordMetadata(new TopicPartition("coupon-issue-requests", 0), 0, 0, 0, 0, 0));
+        given(kafkaTemplate.send(anyString(), anyString(), eq(message)))
+                .willReturn(CompletableFuture.completedFuture(result));
+
+        // when
+        couponProducer.sendCouponIssueRequest(message);
+
+        // then
+        verify(couponIssueCompensator, never()).compensate(any(), anyString());
+    }
+}
@@ -2,8 +2,10 @@ package com.traffic.pointservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PointServiceApplication {
 
     public static void main(String[] args) {
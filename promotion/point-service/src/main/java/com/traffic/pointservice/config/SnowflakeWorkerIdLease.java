@@ -0,0 +1,114 @@
+package com.traffic.pointservice.config;
+
+import com.traffic.pointservice.domain.id.SnowflakeIdGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 로 Snowflake 워커 ID 임대 (snowflake.worker-id 를 지정하지 않은 경우)
+ * snowflake:point-worker:{id} 를 SET NX + TTL 로 선점하고 주기적으로 TTL 을 연장
+ * - 임대할 수 없으면(Redis 장애, 워커 ID 모두 사용 중) 예외로 기동 실패
+ * - 연장하지 못하면 생성기의 임대 만료 시각이 지난 뒤 ID 생성이 중단됨 (다른 노드가 같은 워커 ID 를 가져갈 수 있는 시점)
+ * - 연장 시 키가 이미 만료됐으면 같은 ID 를 다시 선점하고, 다른 노드가 가져갔으면 다시 선점하지 않음
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SnowflakeWorkerIdLease {
+    // 쿠폰 서비스(snowflake:worker:{id})와 워커 ID 범위를 나누어 사용
+    private static final String WORKER_KEY = "snowflake:point-worker:";
+
+    // 내가 가진 임대일 때만 TTL 연장, 키가 없으면 다시 선점, 다른 노드가 가졌으면 0
+    private static final String RENEW_SCRIPT = """
+            local owner = redis.call('GET', KEYS[1])
+            if owner == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            if not owner then
+                redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+                return 1
+            end
+            return 0
+            """;
+
+    private static final String RELEASE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    private final RedissonClient redissonClient;
+    private final String owner = UUID.randomUUID().toString();
+
+    @Value("${snowflake.lease.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private volatile long workerId = -1;
+    private volatile SnowflakeIdGenerator generator;
+
+    // start 부터 순서대로 비어 있는 워커 ID 를 선점하고 그 워커 ID 의 생성기를 반환
+    public SnowflakeIdGenerator acquire(long start) {
+        for (long i = 0; i <= SnowflakeIdGenerator.MAX_WORKER_ID; i++) {
+            long candidate = (start + i) % (SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+            long requestedAt = System.nanoTime();
+            boolean acquired = redissonClient.<String>getBucket(WORKER_KEY + candidate, StringCodec.INSTANCE)
+                    .setIfAbsent(owner, Duration.ofSeconds(ttlSeconds));
+            if (acquired) {
+                SnowflakeIdGenerator leasedGenerator = new SnowflakeIdGenerator(candidate);
+                leasedGenerator.extendLease(requestedAt + TimeUnit.SECONDS.toNanos(ttlSeconds));
+                this.workerId = candidate;
+                this.generator = leasedGenerator;
+                return leasedGenerator;
+            }
+        }
+        throw new IllegalStateException("사용 가능한 Snowflake 워커 ID 가 없습니다.");
+    }
+
+    @Scheduled(fixedDelayString = "${snowflake.lease.renew-interval-ms:10000}")
+    public void renew() {
+        SnowflakeIdGenerator current = generator;
+        if (current == null) {
+            return;     // 워커 ID 를 직접 지정함
+        }
+        long requestedAt = System.nanoTime();
+        try {
+            Long renewed = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RENEW_SCRIPT,
+                    RScript.ReturnType.INTEGER, List.of(WORKER_KEY + workerId),
+                    owner, String.valueOf(TimeUnit.SECONDS.toMillis(ttlSeconds)));
+            if (renewed == null || renewed == 0) {
+                log.error("Snowflake 워커 ID 임대를 다른 노드가 가져갔습니다. 임대 만료 이후 ID 생성이 중단됩니다. workerId={}", workerId);
+                return;
+            }
+            current.extendLease(requestedAt + TimeUnit.SECONDS.toNanos(ttlSeconds));
+        } catch (Exception e) {
+            // 임대 만료 전까지는 계속 발급하고 다음 주기에 다시 연장
+            log.warn("Snowflake 워커 ID 임대 연장 실패: workerId={}, error={}", workerId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void release() {
+        if (generator == null) {
+            return;
+        }
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT,
+                    RScript.ReturnType.INTEGER, List.of(WORKER_KEY + workerId), owner);
+        } catch (Exception e) {
+            log.warn("Snowflake 워커 ID 반납 실패 (TTL 이후 만료): workerId={}, error={}", workerId, e.getMessage());
+        }
+    }
+}
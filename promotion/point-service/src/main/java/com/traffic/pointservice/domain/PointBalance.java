@@ -1,5 +1,6 @@
 package com.traffic.pointservice.domain;
 
+import com.traffic.pointservice.domain.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.Builder;
@@ -20,7 +21,7 @@ import java.time.LocalDateTime;
 public class PointBalance {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(nullable = false, unique = true)